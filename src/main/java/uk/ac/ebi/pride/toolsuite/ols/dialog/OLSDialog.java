@@ -3,9 +3,22 @@ package uk.ac.ebi.pride.toolsuite.ols.dialog;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.client.RestClientException;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.HedgingBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.InterruptibleBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OLSBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.SingleFlightBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.cache.CacheStatistics;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.cache.CachedOLSClient;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.cache.OntologyRegistry;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.message.ThrowableHandler;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.model.MassSearchModel;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.model.ResultGeneration;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.model.TermTableModel;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.offline.OfflineOLSClient;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.renders.SearchTableCellRender;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.search.LocalIndexManager;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.search.MassTolerance;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.task.AbstractTask;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.task.impl.*;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.taskmanager.*;
@@ -31,6 +44,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
  * A dialog for interacting with the Ontology Lookup Service OLS. This version is based in the original implementation by
@@ -87,14 +101,19 @@ public class OLSDialog extends javax.swing.JDialog {
      */
     private Map<String, Identifier> preselectedNames2Ids;
     /**
-     * Counts the number of times the users has pressed a key on the keyboard in
-     * the search field.
+     * The time to wait between keys typed before updating the search.
      */
-    private int keyPressedCounter = 0;
+    private int waitingTime = 350;
     /**
-     * The time to wait between keys typed before updating the search.
+     * Restarted every time the term name search field changes, the search
+     * starts once the user stops typing for waitingTime milliseconds.
      */
-    private int waitingTime = 1000;
+    private javax.swing.Timer termNameSearchDebounceTimer;
+    /**
+     * The term name search currently running, cancelled when a new search
+     * supersedes it. Only accessed on the EDT.
+     */
+    private TermSearchTask currentTermSearchTask;
     /**
      * The search is only performed if a certain amount of characters are
      * inserted.
@@ -125,9 +144,35 @@ public class OLSDialog extends javax.swing.JDialog {
      */
     public static final Integer OLS_DIALOG_BROWSE_ONTOLOGY = 3;
     /**
-     * The OLS connection.
+     * The OLS connection. The term cache behind it is shared by all the dialogs.
+     * If a directory of OBO files is given, the ontologies it holds are read
+     * from it instead of the OLS.
      */
-    private static OLSClient olsConnection = new OLSClient(new OLSWsConfigProd());
+    private static CachedOLSClient olsConnection = (System.getProperty(OfflineOLSClient.DIR_PROP) != null)
+            ? new OfflineOLSClient(new OLSWsConfigProd()) : new CachedOLSClient(new OLSWsConfigProd());
+    /**
+     * The backend used by the dialogs created without one, on top of the
+     * shared OLS connection. Identical concurrent requests, e.g. from several
+     * dialogs or fast row selection, are sent once. The tasks wait for the
+     * requests interruptibly, a cancelled task releases its thread at once.
+     * Every request has a deadline, and the slow lookups are hedged with a
+     * second attempt.
+     */
+    private static final HedgingBackend HEDGING_BACKEND = new HedgingBackend(new OLSBackend(olsConnection));
+
+    private static final SingleFlightBackend SINGLE_FLIGHT_BACKEND = new SingleFlightBackend(HEDGING_BACKEND);
+
+    private static final InterruptibleBackend DEFAULT_BACKEND = new InterruptibleBackend(SINGLE_FLIGHT_BACKEND);
+
+    static {
+        // only the registry and the indexes of the OLS are kept on disk
+        OntologyRegistry.setPersistentBackend(DEFAULT_BACKEND);
+        LocalIndexManager.setPersistentBackend(DEFAULT_BACKEND);
+    }
+    /**
+     * The backend answering all the ontology requests of this dialog.
+     */
+    private final OntologyBackend backend;
     /**
      * The OLS tree browser.
      */
@@ -152,6 +197,19 @@ public class OLSDialog extends javax.swing.JDialog {
      * The last selected ontololgy.
      */
     private String lastSelectedOntology = null;
+
+    /**
+     * Task loading the top level of the ontology browser.
+     */
+    private GetOntologyRootsTask ontologyRootsTask = null;
+
+    /**
+     * Term to reveal in the ontology browser once the top level of its
+     * ontology has been loaded, and that ontology.
+     */
+    private ITerm pendingRevealTerm = null;
+
+    private String pendingRevealOntology = null;
     /**
      * The maximum tool tip length before splitting over multiple lines.
      */
@@ -179,6 +237,14 @@ public class OLSDialog extends javax.swing.JDialog {
 
     private TaskManager taskManager = new TaskManager();
 
+    /**
+     * Generations of the search results and the term details of every search
+     * tab, increased every time the tab is cleared.
+     */
+    private final Map<Integer, ResultGeneration> searchResultsGenerations = new HashMap<>();
+
+    private final Map<Integer, ResultGeneration> termDetailsGenerations = new HashMap<>();
+
     private final ThrowableHandler throwableHandler = new ThrowableHandler();
 
     /**
@@ -367,8 +433,37 @@ public class OLSDialog extends javax.swing.JDialog {
             String selectedOntology, int modifiedRow, String term,
             Double modificationMass, Double modificationAccuracy, Integer searchType,
             Map<String, List<Identifier>> preselectedOntologies) {
+        this(parent, olsInputable, modal, field, selectedOntology, modifiedRow, term, modificationMass,
+                modificationAccuracy, searchType, preselectedOntologies, DEFAULT_BACKEND);
+    }
+
+    /**
+     * Opens a dialog that lets you search for terms using the given ontology
+     * backend.
+     *
+     * @param parent the parent JFrame
+     * @param olsInputable a reference to the frame using the OLS Dialog
+     * @param modal
+     * @param field the name of the field to insert the results into
+     * @param selectedOntology the name of the ontology to search in, e.g., "GO"
+     * or "MOD".
+     * @param modifiedRow the row to modify, use -1 if adding a new row
+     * @param term the term to search for
+     * @param modificationMass the mass of the modification
+     * @param modificationAccuracy the mass accuracy
+     * @param searchType one of the following: OLS_DIALOG_TERM_NAME_SEARCH,
+     * OLS_DIALOG_TERM_ID_SEARCH, OLS_DIALOG_BROWSE_ONTOLOGY or
+     * OLS_DIALOG_PSI_MOD_MASS_SEARCH
+     * @param preselectedOntologies
+     * @param backend the ontology backend, e.g. an OLSBackend
+     */
+    public OLSDialog(JFrame parent, OLSInputable olsInputable, boolean modal, String field,
+            String selectedOntology, int modifiedRow, String term,
+            Double modificationMass, Double modificationAccuracy, Integer searchType,
+            Map<String, List<Identifier>> preselectedOntologies, OntologyBackend backend) {
         super(parent, modal);
 
+        this.backend = checkBackend(backend);
         this.olsInputable = olsInputable;
         this.field = field;
         this.selectedOntology = selectedOntology;
@@ -377,8 +472,9 @@ public class OLSDialog extends javax.swing.JDialog {
         this.preselectedOntologies = (preselectedOntologies==null ? new HashMap() : preselectedOntologies);
         setUpFrame(searchType);
 
-        GetOntologiesTask ontologyTask = new GetOntologiesTask(this, olsConnection);
+        GetOntologiesTask ontologyTask = new GetOntologiesTask(this, backend);
         taskManager.addTask(ontologyTask);
+        indexPreselectedOntologies();
 
         insertValues(modificationMass, modificationAccuracy, searchType);
         this.setLocationRelativeTo(parent);
@@ -408,7 +504,38 @@ public class OLSDialog extends javax.swing.JDialog {
                      String selectedOntology, int modifiedRow, String term,
                      Double modificationMass, Double modificationAccuracy, Integer searchType,
                      Map<String, List<Identifier>> preselectedOntologies, boolean onlyListPreselectedOntologies) {
+        this(parent, olsInputable, modal, field, selectedOntology, modifiedRow, term, modificationMass,
+                modificationAccuracy, searchType, preselectedOntologies, onlyListPreselectedOntologies, DEFAULT_BACKEND);
+    }
+
+    /**
+     * Opens a dialog that lets you search for terms using the given ontology
+     * backend.
+     *
+     * @param parent the parent JFrame
+     * @param olsInputable a reference to the frame using the OLS Dialog
+     * @param modal
+     * @param field the name of the field to insert the results into
+     * @param selectedOntology the name of the ontology to search in, e.g., "GO"
+     * or "MOD".
+     * @param modifiedRow the row to modify, use -1 if adding a new row
+     * @param term the term to search for
+     * @param modificationMass the mass of the modification
+     * @param modificationAccuracy the mass accuracy
+     * @param searchType one of the following: OLS_DIALOG_TERM_NAME_SEARCH,
+     * OLS_DIALOG_TERM_ID_SEARCH, OLS_DIALOG_BROWSE_ONTOLOGY or
+     * OLS_DIALOG_PSI_MOD_MASS_SEARCH
+     * @param preselectedOntologies
+     * @param onlyListPreselectedOntologies
+     * @param backend the ontology backend, e.g. an OLSBackend
+     */
+    public OLSDialog(JFrame parent, OLSInputable olsInputable, boolean modal, String field,
+                     String selectedOntology, int modifiedRow, String term,
+                     Double modificationMass, Double modificationAccuracy, Integer searchType,
+                     Map<String, List<Identifier>> preselectedOntologies, boolean onlyListPreselectedOntologies,
+                     OntologyBackend backend) {
         super(parent, modal);
+        this.backend = checkBackend(backend);
         this.onlyListPreselectedOntologies = onlyListPreselectedOntologies;
         this.olsInputable = olsInputable;
         this.field = field;
@@ -418,8 +545,9 @@ public class OLSDialog extends javax.swing.JDialog {
         this.preselectedOntologies = (preselectedOntologies==null ? new HashMap() : preselectedOntologies);
         setUpFrame(searchType);
 
-        GetOntologiesTask ontologyTask = new GetOntologiesTask(this,  olsConnection);
+        GetOntologiesTask ontologyTask = new GetOntologiesTask(this,  backend);
         taskManager.addTask(ontologyTask);
+        indexPreselectedOntologies();
 
         insertValues(modificationMass, modificationAccuracy, searchType);
         this.setLocationRelativeTo(parent);
@@ -486,7 +614,38 @@ public class OLSDialog extends javax.swing.JDialog {
             String selectedOntology, int modifiedRow, String term,
             Double modificationMass, Double modificationAccuracy, Integer searchType,
             Map<String, List<Identifier>> preselectedOntologies) {
+        this(parent, olsInputable, modal, field, selectedOntology, modifiedRow, term, modificationMass,
+                modificationAccuracy, searchType, preselectedOntologies, DEFAULT_BACKEND);
+    }
+
+    /**
+     * Opens a dialog that lets you search for terms using the given ontology
+     * backend.
+     *
+     * @param parent the parent JDialog
+     * @param olsInputable a reference to the frame using the OLS Dialog
+     * @param modal
+     * @param field the name of the field to insert the results into
+     * @param selectedOntology the name of the ontology to search in, e.g., "GO"
+     * or "MOD".
+     * @param modifiedRow the row to modify, use -1 if adding a new row
+     * @param term the term to search for
+     * @param modificationMass the mass of the modification
+     * @param modificationAccuracy the mass accuracy
+     * @param searchType one of the following: OLS_DIALOG_TERM_NAME_SEARCH,
+     * OLS_DIALOG_TERM_ID_SEARCH, OLS_DIALOG_BROWSE_ONTOLOGY or
+     * OLS_DIALOG_PSI_MOD_MASS_SEARCH
+     * @param preselectedOntologies Default ontologies to display. Key: ontology
+     * name, e.g. "MS" or "GO". Value: parent ontologies, e.g. "MS:1000458",
+     * "null" (no parent ontology preselected)
+     * @param backend the ontology backend, e.g. an OLSBackend
+     */
+    public OLSDialog(JDialog parent, OLSInputable olsInputable, boolean modal, String field,
+            String selectedOntology, int modifiedRow, String term,
+            Double modificationMass, Double modificationAccuracy, Integer searchType,
+            Map<String, List<Identifier>> preselectedOntologies, OntologyBackend backend) {
         super(parent, modal);
+        this.backend = checkBackend(backend);
         this.olsInputable = olsInputable;
         this.field = field;
         this.selectedOntology = selectedOntology;
@@ -499,8 +658,9 @@ public class OLSDialog extends javax.swing.JDialog {
         }
         setUpFrame(searchType);
 
-        GetOntologiesTask ontologyTask = new GetOntologiesTask(this,  olsConnection);
+        GetOntologiesTask ontologyTask = new GetOntologiesTask(this,  backend);
         taskManager.addTask(ontologyTask);
+        indexPreselectedOntologies();
 
         insertValues(modificationMass, modificationAccuracy, searchType);
         this.setLocationRelativeTo(parent);
@@ -530,6 +690,36 @@ public class OLSDialog extends javax.swing.JDialog {
         this(parent, olsInputable, modal, field, selectedOntology, modifiedRow, term, modificationMass, modificationAccuracy, searchType, null);
     }
 
+    private static OntologyBackend checkBackend(OntologyBackend backend) {
+        if (backend == null) {
+            throw new IllegalArgumentException("Null ontology backend");
+        }
+        return backend;
+    }
+
+    /**
+     * The backend used by the dialogs created without one.
+     *
+     * @return OntologyBackend the OLS backend on top of the shared term cache
+     */
+    public static OntologyBackend getDefaultBackend() {
+        return DEFAULT_BACKEND;
+    }
+
+    public OntologyBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Builds the local term index of the preselected ontologies in the
+     * background, the term name search then answers from it.
+     */
+    private void indexPreselectedOntologies() {
+        if (LocalIndexManager.isEnabled() && preselectedOntologies != null && !preselectedOntologies.isEmpty()) {
+            taskManager.addTask(new BuildLocalIndexTask(this, backend, preselectedOntologies.keySet()), false);
+        }
+    }
+
     /**
      * Inserts the provided values into the corresponding fields.
      */
@@ -582,11 +772,46 @@ public class OLSDialog extends javax.swing.JDialog {
 
         initComponents();
 
+        // the search results are appended page by page, see TermTableModel
+        olsResultsTermNameSearchJTable.setModel(new TermTableModel(ITerm.class));
+        olsResultsTermIdSearchJTable.setModel(new TermTableModel(Term.class));
+
+        // type-ahead: search once the user stops typing
+        termNameSearchDebounceTimer = new javax.swing.Timer(waitingTime, new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                if (isDisplayable()) {
+                    termNameSearchJTextFieldKeyReleased(evt);
+                }
+            }
+        });
+        termNameSearchDebounceTimer.setRepeats(false);
+        termNameSearchJTextField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                termNameSearchDebounceTimer.restart();
+            }
+
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                termNameSearchDebounceTimer.restart();
+            }
+
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+            }
+        });
+
         olsResultsTermNameSearchJTable.setDefaultRenderer(ITerm.class, new SearchTableCellRender());
 
         olsResultsTermIdSearchJTable.setDefaultRenderer(Term.class, new SearchTableCellRender());
         olsResultsMassSearchJTable.setDefaultRenderer(Term.class, new SearchTableCellRender());
 
+        // right click on a search result to reveal it in the ontology browser
+        installRevealPopupMenu(olsResultsTermNameSearchJTable);
+        installRevealPopupMenu(olsResultsTermIdSearchJTable);
+        installRevealPopupMenu(olsResultsMassSearchJTable);
+
+        // keep the accession columns as wide as their widest accession
+        ColumnWidthTracker.install(olsResultsTermNameSearchJTable, "Accession", 6);
+        ColumnWidthTracker.install(olsResultsTermIdSearchJTable, "Accession", 6);
+
         olsResultsTermNameSearchJScrollPane.getViewport().setOpaque(false);
         termDetailsTermNameSearchJScrollPane.getViewport().setOpaque(false);
         olsResultsTermIdSearchJScrollPane.getViewport().setOpaque(false);
@@ -675,9 +900,9 @@ public class OLSDialog extends javax.swing.JDialog {
         try {
             List<Term> roots;
             if (parentTerm == null) {
-                roots = olsConnection.getRootTerms(ontology);
+                roots = backend.getRootTerms(ontology);
             } else {
-                roots = olsConnection.getTermChildren(parentTerm, ontology, 1);
+                roots = backend.getTermChildren(parentTerm, ontology, 1);
             }
 
             if (roots != null) {
@@ -685,7 +910,7 @@ public class OLSDialog extends javax.swing.JDialog {
                 retrievedValues.addAll(roots);
             }
 
-        } catch (RestClientException e) {
+        } catch (RestClientException | CancellationException e) {
             JOptionPane.showMessageDialog(
                     this,
                     DEFAULT_OLS_CONNECTION_ERROR,
@@ -697,6 +922,36 @@ public class OLSDialog extends javax.swing.JDialog {
         return retrievedValues;
     }
 
+    /**
+     * Generation of the search results of a search tab, see clearData.
+     *
+     * @param searchType the search type
+     * @return ResultGeneration the generation counter
+     */
+    public ResultGeneration getSearchResultsGeneration(Integer searchType) {
+        ResultGeneration generation = searchResultsGenerations.get(searchType);
+        if (generation == null) {
+            generation = new ResultGeneration();
+            searchResultsGenerations.put(searchType, generation);
+        }
+        return generation;
+    }
+
+    /**
+     * Generation of the term details of a search tab, see clearData.
+     *
+     * @param searchType the search type
+     * @return ResultGeneration the generation counter
+     */
+    public ResultGeneration getTermDetailsGeneration(Integer searchType) {
+        ResultGeneration generation = termDetailsGenerations.get(searchType);
+        if (generation == null) {
+            generation = new ResultGeneration();
+            termDetailsGenerations.put(searchType, generation);
+        }
+        return generation;
+    }
+
     /**
      * Clears the meta data section for the selected search type.
      *
@@ -746,12 +1001,12 @@ public class OLSDialog extends javax.swing.JDialog {
 
         if (clearMetaData) {
 
+            getTermDetailsGeneration(searchType).next();
+
             if(currentDefinitionsJTextPane != null)
                 currentDefinitionsJTextPane.setText("");
 
-            while (currentTermDetailsJTable.getRowCount() > 0) {
-                ((DefaultTableModel) currentTermDetailsJTable.getModel()).removeRow(0);
-            }
+            ((DefaultTableModel) currentTermDetailsJTable.getModel()).setRowCount(0);
 
             if(currentTermDetailsJScrollPane != null)
                   currentTermDetailsJScrollPane.getVerticalScrollBar().setValue(0);
@@ -760,9 +1015,8 @@ public class OLSDialog extends javax.swing.JDialog {
         if (clearSearchResults) {
             if (searchType != OLS_DIALOG_BROWSE_ONTOLOGY) {
 
-                while (currentSearchResultsJTable.getRowCount() > 0) {
-                    ((DefaultTableModel) currentSearchResultsJTable.getModel()).removeRow(0);
-                }
+                getSearchResultsGeneration(searchType).next();
+                ((TermTableModel) currentSearchResultsJTable.getModel()).clear();
                 if(currentSearchResultsJScrollPane !=null)
                     currentSearchResultsJScrollPane.getVerticalScrollBar().setValue(0);
             }
@@ -790,8 +1044,8 @@ public class OLSDialog extends javax.swing.JDialog {
         List<Term> childTerms = null;
 
         try {
-            childTerms = olsConnection.getTermChildren(termId.getOboId(), ontology, 1);
-        } catch (RestClientException ex) {
+            childTerms = backend.getTermChildren(termId.getOboId(), ontology, 1);
+        } catch (RestClientException | CancellationException ex) {
             JOptionPane.showMessageDialog(
                     this,
                     DEFAULT_OLS_CONNECTION_ERROR,
@@ -803,9 +1057,8 @@ public class OLSDialog extends javax.swing.JDialog {
 
         if (!error && childTerms != null && !childTerms.isEmpty()) {
             // add the nodes to the tree
-            for (Term tId : childTerms) {
-                treeBrowser.addNode(tId);
-            }
+            DefaultMutableTreeNode parentNode = (parent instanceof DefaultMutableTreeNode) ? (DefaultMutableTreeNode) parent : null;
+            treeBrowser.addNodes(parentNode, childTerms, true);
             return true;
         } else {
             if (debug) {
@@ -900,7 +1153,7 @@ public class OLSDialog extends javax.swing.JDialog {
         if (!error) {
 
             //metadata = olsConnection.getTermDescription(term.getGlobalId(), ontology);
-            GetMetadataTask metadataTask = new GetMetadataTask(this, olsConnection, term, ontology, searchType);
+            GetMetadataTask metadataTask = new GetMetadataTask(this, backend, term, ontology, searchType);
             taskManager.addTask(metadataTask);
 
 
@@ -1065,11 +1318,131 @@ public class OLSDialog extends javax.swing.JDialog {
                 treeBrowser.initialize(ontology);
             }
 
-            GetOntologyRootsTask ontologyRootsTask = new GetOntologyRootsTask(this, olsConnection, ontology, parentTermId);
+            ontologyRootsTask = new GetOntologyRootsTask(this, backend, ontology, parentTermId);
             taskManager.addTask(ontologyRootsTask);
         }
     }
 
+    /**
+     * Loads in the background the children of the given nodes of the tree
+     * browser. The requests are sent concurrently and the nodes are added in
+     * batches. Nodes that already have children, or whose term has none, are
+     * skipped.
+     *
+     * @param nodes the nodes to load the children for
+     */
+    public void prefetchChildren(List<DefaultMutableTreeNode> nodes) {
+        PrefetchChildrenTask prefetchTask = new PrefetchChildrenTask(this, backend, getCurrentOntologyLabel(), nodes);
+        if (!prefetchTask.isEmpty()) {
+            taskManager.addTask(prefetchTask, false);
+        }
+    }
+
+    /**
+     * Loads the children of the node selected in the tree browser, in an
+     * interactive task. The node is left untouched if it already has children.
+     *
+     * @param node the selected node
+     */
+    public void loadChildrenInBackground(DefaultMutableTreeNode node) {
+        taskManager.addTask(new LoadChildrenTask(this, backend, getCurrentOntologyLabel(), node), false);
+    }
+
+    /**
+     * Add a popup menu to a search result table with an action revealing
+     * the term of the clicked row in the ontology browser.
+     *
+     * @param table the search result table
+     */
+    private void installRevealPopupMenu(final JTable table) {
+        final JPopupMenu popupMenu = new JPopupMenu();
+        JMenuItem revealMenuItem = new JMenuItem("Reveal in Ontology Browser");
+        revealMenuItem.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                int row = table.getSelectedRow();
+                if (row != -1 && table.getValueAt(row, 0) instanceof ITerm) {
+                    revealInBrowser((ITerm) table.getValueAt(row, 0));
+                }
+            }
+        });
+        popupMenu.add(revealMenuItem);
+        table.addMouseListener(new java.awt.event.MouseAdapter() {
+            public void mousePressed(MouseEvent evt) {
+                showPopup(evt);
+            }
+
+            public void mouseReleased(MouseEvent evt) {
+                showPopup(evt);
+            }
+
+            private void showPopup(MouseEvent evt) {
+                int row = table.rowAtPoint(evt.getPoint());
+                if (evt.isPopupTrigger() && row != -1) {
+                    table.setRowSelectionInterval(row, row);
+                    popupMenu.show(table, evt.getX(), evt.getY());
+                }
+            }
+        });
+    }
+
+    /**
+     * Open the ontology browser on the ontology of a term and expand the
+     * tree down to the term. If the top level of the ontology has to be
+     * loaded first, the term is revealed once it is loaded.
+     *
+     * @param term the term to reveal
+     */
+    public void revealInBrowser(ITerm term) {
+        String ontology = getOntologyLabelFromTermId(term);
+        String ontologyItem = null;
+        for (int i = 0; i < ontologyJComboBox.getItemCount() && ontology != null; i++) {
+            String item = (String) ontologyJComboBox.getItemAt(i);
+            if (ontology.equalsIgnoreCase(getOntologyLabel(item)) && (ontologyItem == null || !item.contains("/ "))) {
+                ontologyItem = item;
+            }
+        }
+        if (ontologyItem == null) {
+            JOptionPane.showMessageDialog(this, "The ontology of the term is not available in the ontology browser.",
+                    "Reveal in Ontology Browser", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        pendingRevealTerm = term;
+        pendingRevealOntology = getOntologyLabel(ontologyItem);
+        GetOntologyRootsTask previousRootsTask = ontologyRootsTask;
+
+        if (searchTypeJTabbedPane.getSelectedIndex() == OLS_DIALOG_PSI_MOD_MASS_SEARCH) {
+            // leaving the mass search tab selects the last selected ontology again
+            lastSelectedOntology = ontologyItem;
+            searchTypeJTabbedPane.setEnabledAt(OLS_DIALOG_BROWSE_ONTOLOGY, true);
+            searchTypeJTabbedPane.setSelectedIndex(OLS_DIALOG_BROWSE_ONTOLOGY);
+        } else {
+            ontologyJComboBox.setSelectedItem(ontologyItem);
+            if (searchTypeJTabbedPane.getSelectedIndex() != OLS_DIALOG_BROWSE_ONTOLOGY) {
+                searchTypeJTabbedPane.setSelectedIndex(OLS_DIALOG_BROWSE_ONTOLOGY);
+            }
+        }
+
+        // the browser already shows the ontology
+        if (ontologyRootsTask == previousRootsTask && (ontologyRootsTask == null || ontologyRootsTask.isDone())) {
+            revealPendingTerm(getCurrentOntologyLabel());
+        }
+    }
+
+    /**
+     * Called once the top level of the ontology browser has been loaded,
+     * reveals the pending term if it belongs to the loaded ontology.
+     *
+     * @param ontology the ontology shown in the browser
+     */
+    public void revealPendingTerm(String ontology) {
+        if (pendingRevealTerm != null && pendingRevealOntology.equalsIgnoreCase(ontology)) {
+            taskManager.addTask(new RevealTermTask(this, backend, pendingRevealTerm, ontology));
+            pendingRevealTerm = null;
+            pendingRevealOntology = null;
+        }
+    }
+
     /**
      * Adds a second level of non visible nodes. Needed to be able to show
      * folder icons for the current level of nodes.
@@ -1082,31 +1455,15 @@ public class OLSDialog extends javax.swing.JDialog {
     public boolean addSecondLevelOfNodes(ITerm termId, String ontology, DefaultMutableTreeNode parentNode) {
 
         boolean error = false;
-        boolean isRootTermDefined = true;
-        Identifier termIdIdentifier;
 
         try {
             // get the next level of nodes
-            List<Term> secondLevelChildTerms = new ArrayList<>();
-              if (termId != null && termId.getGlobalId() != null) {
-                  if(termId.getGlobalId().getIdentifier() == null) {
-                      termIdIdentifier = termId.getIri();
-                  } else {
-                      termIdIdentifier = termId.getGlobalId() ;
-                      isRootTermDefined = !termId.getGlobalId().getIdentifier().equalsIgnoreCase("No Root Terms Defined!");
-                  }
-                if (((Term) termId).isHasChildren() && isRootTermDefined) {
-                  secondLevelChildTerms = olsConnection.getTermChildren(termIdIdentifier, ontology, 1);
-                }
-              }
-
+            List<Term> secondLevelChildTerms = PrefetchChildrenTask.getChildTerms(backend, termId, ontology);
 
             // add the level of non visible nodes
-            for (Term tId2 : secondLevelChildTerms) {
-                treeBrowser.addNode(parentNode, tId2, false);
-            }
+            treeBrowser.addNodes(parentNode, secondLevelChildTerms, false);
 
-        } catch (RestClientException ex) {
+        } catch (RestClientException | CancellationException ex) {
             JOptionPane.showMessageDialog(
                     this,
                     DEFAULT_OLS_CONNECTION_ERROR,
@@ -1126,7 +1483,21 @@ public class OLSDialog extends javax.swing.JDialog {
      */
     public String getCurrentOntologyLabel() {
 
-        String ontology = ((String) ontologyJComboBox.getSelectedItem());
+        String ontology = getOntologyLabel((String) ontologyJComboBox.getSelectedItem());
+        if(ontology == null)
+            ontology = SEARCH_IN_ALL_ONTOLOGIES_AVAILABLE_IN_THE_OLS_REGISTRY;
+
+        return ontology;
+    }
+
+    /**
+     * Returns the ontology label of an item of the ontology list, e.g. "MS"
+     * for "PSI Mass Spectrometry Ontology [MS]".
+     *
+     * @param ontology an item of the ontology list
+     * @return the ontology label
+     */
+    private static String getOntologyLabel(String ontology) {
         //ontology = ontology.substring(ontology.lastIndexOf("[") + 1, ontology.length() - 1);
         if (ontology != null && ontology.lastIndexOf("[") != -1) {
             ontology = ontology.substring(ontology.lastIndexOf("[") + 1, ontology.length());
@@ -1134,9 +1505,6 @@ public class OLSDialog extends javax.swing.JDialog {
         if (ontology != null && ontology.lastIndexOf("]") != -1) {
             ontology = ontology.substring(0, ontology.lastIndexOf("]"));
         }
-        if(ontology == null)
-            ontology = SEARCH_IN_ALL_ONTOLOGIES_AVAILABLE_IN_THE_OLS_REGISTRY;
-
         return ontology;
     }
 
@@ -1851,7 +2219,7 @@ public class OLSDialog extends javax.swing.JDialog {
 
         precisionJTextField.setHorizontalAlignment(javax.swing.JTextField.CENTER);
         precisionJTextField.setText("0.1");
-        precisionJTextField.setToolTipText("Mass Accuracy");
+        precisionJTextField.setToolTipText("Mass Accuracy in Da, or in ppm with a ppm suffix (e.g. 10 ppm)");
         precisionJTextField.addKeyListener(new java.awt.event.KeyAdapter() {
             public void keyPressed(java.awt.event.KeyEvent evt) {
                 precisionJTextFieldKeyPressed(evt);
@@ -2233,45 +2601,53 @@ public class OLSDialog extends javax.swing.JDialog {
      * @param evt
      */
     private void termNameSearchJTextFieldKeyReleased(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_termNameSearchJTextFieldKeyReleased
-        keyPressedCounter++;
-        if (keyPressedCounter == 1) {
-            setCursor(new java.awt.Cursor(java.awt.Cursor.WAIT_CURSOR));
-            termNameSearchJTextField.setCursor(new java.awt.Cursor(java.awt.Cursor.WAIT_CURSOR));
-            insertSelectedJButton.setEnabled(false);
-            currentlySelectedTermNameSearchAccessionNumber = null;
-            try {
-                clearData(OLS_DIALOG_TERM_NAME_SEARCH, true, true);
-                if (termNameSearchJTextField.getText().length() >= MINIMUM_WORD_LENGTH) {
-                    String ontology = getCurrentOntologyLabel().equalsIgnoreCase(SEARCH_IN_ALL_ONTOLOGIES_AVAILABLE_IN_THE_OLS_REGISTRY) || getCurrentOntologyLabel().equalsIgnoreCase(SEARCH_IN_THESE_PRESELECTED_ONTOLOGIES) ? null : getCurrentOntologyLabel();
-                    if (isPreselectedOption()) {
-                        TermSearchTask termSearch = new TermSearchTask(this, olsConnection, "*" + termNameSearchJTextField.getText() + "*", false, preselectedOntologies);
-                        taskManager.addTask(termSearch);
-                    } else if (getCurrentOntologyLabel().equalsIgnoreCase(SEARCH_IN_ALL_ONTOLOGIES_AVAILABLE_IN_THE_OLS_REGISTRY)) {
-                        TermSearchTask termSearch = new TermSearchTask(this, olsConnection, "*" + termNameSearchJTextField.getText() + "*", false);
-                        taskManager.addTask(termSearch);
-                    } else {
-                        TermSearchTask termSearch = new TermSearchTask(this, olsConnection, "*" + termNameSearchJTextField.getText() + "*", false, ontology);
-                        taskManager.addTask(termSearch);
-                    }
+        // an explicit search (button, inserted value) does not wait for the debounce
+        termNameSearchDebounceTimer.stop();
+        cancelTermNameSearch();
+        setCursor(new java.awt.Cursor(java.awt.Cursor.WAIT_CURSOR));
+        termNameSearchJTextField.setCursor(new java.awt.Cursor(java.awt.Cursor.WAIT_CURSOR));
+        insertSelectedJButton.setEnabled(false);
+        currentlySelectedTermNameSearchAccessionNumber = null;
+        try {
+            clearData(OLS_DIALOG_TERM_NAME_SEARCH, true, true);
+            if (termNameSearchJTextField.getText().length() >= MINIMUM_WORD_LENGTH) {
+                String ontology = getCurrentOntologyLabel().equalsIgnoreCase(SEARCH_IN_ALL_ONTOLOGIES_AVAILABLE_IN_THE_OLS_REGISTRY) || getCurrentOntologyLabel().equalsIgnoreCase(SEARCH_IN_THESE_PRESELECTED_ONTOLOGIES) ? null : getCurrentOntologyLabel();
+                if (isPreselectedOption()) {
+                    currentTermSearchTask = new TermSearchTask(this, backend, "*" + termNameSearchJTextField.getText() + "*", false, preselectedOntologies);
+                } else if (getCurrentOntologyLabel().equalsIgnoreCase(SEARCH_IN_ALL_ONTOLOGIES_AVAILABLE_IN_THE_OLS_REGISTRY)) {
+                    currentTermSearchTask = new TermSearchTask(this, backend, "*" + termNameSearchJTextField.getText() + "*", false);
                 } else {
-                    numberOfTermsTermNameSearchJTextField.setText("-");
+                    currentTermSearchTask = new TermSearchTask(this, backend, "*" + termNameSearchJTextField.getText() + "*", false, ontology);
                 }
-            } catch (RestClientException ex) {
-                JOptionPane.showMessageDialog(
-                        null,
-                        DEFAULT_OLS_CONNECTION_ERROR,
-                        "OLS Connection Error", JOptionPane.ERROR_MESSAGE);
-                Util.writeToErrorLog("Error when trying to access OLS: ");
-                ex.printStackTrace();
+                taskManager.addTask(currentTermSearchTask);
+            } else {
+                numberOfTermsTermNameSearchJTextField.setText("-");
             }
-            setCursor(new java.awt.Cursor(java.awt.Cursor.DEFAULT_CURSOR));
-            termNameSearchJTextField.setCursor(new java.awt.Cursor(java.awt.Cursor.TEXT_CURSOR));
-            keyPressedCounter = 0;
-        } else {
-            keyPressedCounter--;
+        } catch (RestClientException | CancellationException ex) {
+            JOptionPane.showMessageDialog(
+                    null,
+                    DEFAULT_OLS_CONNECTION_ERROR,
+                    "OLS Connection Error", JOptionPane.ERROR_MESSAGE);
+            Util.writeToErrorLog("Error when trying to access OLS: ");
+            ex.printStackTrace();
         }
+        setCursor(new java.awt.Cursor(java.awt.Cursor.DEFAULT_CURSOR));
+        termNameSearchJTextField.setCursor(new java.awt.Cursor(java.awt.Cursor.TEXT_CURSOR));
     }//GEN-LAST:event_termNameSearchJTextFieldKeyReleased
 
+    /**
+     * Cancels the running term name search, its remaining requests are
+     * dropped and its pending results are not added to the table.
+     */
+    private void cancelTermNameSearch() {
+        if (currentTermSearchTask != null) {
+            if (!currentTermSearchTask.isDone()) {
+                taskManager.cancelTask(currentTermSearchTask, true);
+            }
+            currentTermSearchTask = null;
+        }
+    }
+
     /**
      * Inserts the selected ontology into the parents text field or table and
      * then closes the dialog.
@@ -2296,30 +2672,39 @@ public class OLSDialog extends javax.swing.JDialog {
             termId = (Term) olsResultsTermIdSearchJTable.getValueAt(olsResultsTermIdSearchJTable.getSelectedRow(), 0);
         }
 
-        if (termId != null) {
+        try {
+            if (termId != null) {
 
-            Term selectedValue = olsConnection.getTermById(termId.getGlobalId(), termId.getOntologyName());
-            Ontology ontologyComplete = olsConnection.getOntology(termId.getOntologyName());
-            String ontologyLong = ontologyComplete.getName() + "[" + ontologyComplete.getId() + "]";
+                Term selectedValue = backend.getTermById(termId.getGlobalId(), termId.getOntologyName());
+                Ontology ontologyComplete = getOntology(termId.getOntologyName());
+                String ontologyLong = ontologyComplete.getName() + "[" + ontologyComplete.getId() + "]";
 
-            //insert the value into the correct text field or table
-            if (olsInputable != null) {
-                olsInputable.insertOLSResult(field, selectedValue, selectedValue, ontologyComplete.getId() , ontologyLong, modifiedRow, mappedTerm, metadata);
-                this.setVisible(false);
-                this.dispose();
-            }
-        }else if(ontologyName != null && ontologyName.getGlobalId() != null){
+                //insert the value into the correct text field or table
+                if (olsInputable != null) {
+                    olsInputable.insertOLSResult(field, selectedValue, selectedValue, ontologyComplete.getId() , ontologyLong, modifiedRow, mappedTerm, metadata);
+                    this.setVisible(false);
+                    this.dispose();
+                }
+            }else if(ontologyName != null && ontologyName.getGlobalId() != null){
 
-            Term selectedValue = olsConnection.getTermById(ontologyName.getGlobalId(), ontologyName.getOntologyName());
-            Ontology ontologyComplete = olsConnection.getOntology(ontologyName.getOntologyName());
-            String ontologyLong = ontologyComplete.getName() + "[" + ontologyComplete.getId() + "]";
+                Term selectedValue = backend.getTermById(ontologyName.getGlobalId(), ontologyName.getOntologyName());
+                Ontology ontologyComplete = getOntology(ontologyName.getOntologyName());
+                String ontologyLong = ontologyComplete.getName() + "[" + ontologyComplete.getId() + "]";
 
-            //insert the value into the correct text field or table
-            if (olsInputable != null) {
-                olsInputable.insertOLSResult(field, selectedValue, selectedValue, ontologyComplete.getId() , ontologyLong, modifiedRow, mappedTerm, metadata);
-                this.setVisible(false);
-                this.dispose();
+                //insert the value into the correct text field or table
+                if (olsInputable != null) {
+                    olsInputable.insertOLSResult(field, selectedValue, selectedValue, ontologyComplete.getId() , ontologyLong, modifiedRow, mappedTerm, metadata);
+                    this.setVisible(false);
+                    this.dispose();
+                }
             }
+        } catch (RestClientException | CancellationException ex) {
+            JOptionPane.showMessageDialog(
+                    this,
+                    DEFAULT_OLS_CONNECTION_ERROR,
+                    "OLS Connection Error", JOptionPane.ERROR_MESSAGE);
+            Util.writeToErrorLog("Error when trying to access OLS: ");
+            ex.printStackTrace();
         }
         this.setCursor(new java.awt.Cursor(java.awt.Cursor.DEFAULT_CURSOR));
     }//GEN-LAST:event_insertSelectedJButtonActionPerformed
@@ -2483,9 +2868,17 @@ public class OLSDialog extends javax.swing.JDialog {
             error = true;
         }
 
+        MassTolerance toleranceUnit = MassTolerance.DA;
         if (!error) {
             try {
-                currentAccuracy = new Double(precisionJTextField.getText());
+                String precision = precisionJTextField.getText().trim();
+                if (precision.toLowerCase().endsWith("ppm")) {
+                    toleranceUnit = MassTolerance.PPM;
+                    precision = precision.substring(0, precision.length() - 3).trim();
+                } else if (precision.toLowerCase().endsWith("da")) {
+                    precision = precision.substring(0, precision.length() - 2).trim();
+                }
+                currentAccuracy = new Double(precision);
                 if (currentAccuracy < 0) {
                     JOptionPane.showMessageDialog(null,
                             "The precision has to be a positive value.", "Mass Accuracy", JOptionPane.INFORMATION_MESSAGE);
@@ -2503,7 +2896,7 @@ public class OLSDialog extends javax.swing.JDialog {
         if (!error) {
 
             String massType = massTypeJComboBox.getSelectedItem().toString();
-            GetPTMModificationsTask ptmSearchTask = new GetPTMModificationsTask(null,olsConnection, massSearchModel, massType, currentModificationMass - currentAccuracy, currentModificationMass + currentAccuracy);
+            GetPTMModificationsTask ptmSearchTask = new GetPTMModificationsTask(this, backend, massSearchModel, massType, currentModificationMass, currentAccuracy, toleranceUnit);
             taskManager.addTask(ptmSearchTask);
 
             this.setCursor(new java.awt.Cursor(java.awt.Cursor.DEFAULT_CURSOR));
@@ -2746,29 +3139,21 @@ public class OLSDialog extends javax.swing.JDialog {
             clearData(OLS_DIALOG_TERM_ID_SEARCH, true, true);
             String ontology =  ((String) ontologyJComboBox.getSelectedItem()).contains("[") ? getCurrentOntologyLabel() : "";
             Term currentTermName = !StringUtils.isEmpty(ontology) ?
-                olsConnection.getTermById(new Identifier(termIdSearchJTextField.getText().trim(), Identifier.IdentifierType.OBO), ontology) :
+                backend.getTermById(new Identifier(termIdSearchJTextField.getText().trim(), Identifier.IdentifierType.OBO), ontology) :
                 null;
             //Todo search globally for the search term without contraints
             if (currentTermName == null || currentTermName==null) {
                 JOptionPane.showMessageDialog(this, "No matching terms found.", "No Matching Terms", JOptionPane.INFORMATION_MESSAGE);
                 termIdSearchJTextField.requestFocus();
             } else {
-                ((DefaultTableModel) olsResultsTermIdSearchJTable.getModel()).addRow(new Object[]{currentTermName, currentTermName});
-                Integer width = getPreferredColumnWidth(olsResultsTermIdSearchJTable, olsResultsTermIdSearchJTable.getColumn("Accession").getModelIndex(), 6);
-                if (width != null) {
-                    olsResultsTermIdSearchJTable.getColumn("Accession").setMinWidth(width);
-                    olsResultsTermIdSearchJTable.getColumn("Accession").setMaxWidth(width);
-                } else {
-                    olsResultsTermIdSearchJTable.getColumn("Accession").setMinWidth(15);
-                    olsResultsTermIdSearchJTable.getColumn("Accession").setMaxWidth(Integer.MAX_VALUE);
-                    }
+                ((TermTableModel) olsResultsTermIdSearchJTable.getModel()).addTerm(currentTermName);
             }
             this.setCursor(new java.awt.Cursor(java.awt.Cursor.DEFAULT_CURSOR));
             termIdSearchJTextField.setCursor(new java.awt.Cursor(java.awt.Cursor.TEXT_CURSOR));
             if (olsResultsTermIdSearchJTable.getRowCount() > 0) {
                 olsResultsTermIdSearchJTable.scrollRectToVisible(olsResultsTermIdSearchJTable.getCellRect(0, 0, false));
             }
-        } catch (RestClientException ex) {
+        } catch (RestClientException | CancellationException ex) {
             JOptionPane.showMessageDialog(
                     this,
                     DEFAULT_OLS_CONNECTION_ERROR,
@@ -3057,13 +3442,9 @@ public class OLSDialog extends javax.swing.JDialog {
             if (column == olsResultsMassSearchJTable.getColumn("Accession").getModelIndex()) {
                 // open protein link in web browser
                 if (column == olsResultsMassSearchJTable.getColumn("Accession").getModelIndex() && evt != null && evt.getButton() == MouseEvent.BUTTON1) {
-                    if (((String) olsResultsMassSearchJTable.getValueAt(row, column)).lastIndexOf("<html>") != -1) {
-                        String link = (String) olsResultsMassSearchJTable.getValueAt(row, column);
-                        link = link.substring(link.indexOf("\"") + 1);
-                        link = link.substring(0, link.indexOf("\""));
-
+                    if (((Term) olsResultsMassSearchJTable.getValueAt(row, column)).getIri() != null) {
                         this.setCursor(new java.awt.Cursor(java.awt.Cursor.WAIT_CURSOR));
-                        BareBonesBrowserLaunch.openURL(link);
+                        BareBonesBrowserLaunch.openURL(Util.getOlsTermLink((Term) olsResultsMassSearchJTable.getValueAt(row, column)));
                         this.setCursor(new java.awt.Cursor(java.awt.Cursor.DEFAULT_CURSOR));
                     }
                 }
@@ -3202,6 +3583,8 @@ public class OLSDialog extends javax.swing.JDialog {
      * the column. Margin pixels are added to the left and right (resulting in
      * an additional width of 2*margin pixels. <br> Note that this method
      * iterates all rows in the table to get the perfect width of the column!
+     * The result tables use a {@link ColumnWidthTracker} instead, which only
+     * measures the rows as they are added.
      *
      * @param table the table
      * @param colIndex the colum index
@@ -3235,9 +3618,23 @@ public class OLSDialog extends javax.swing.JDialog {
         return width;
     }
 
+    /**
+     * Look the ontology up in the ontology registry, the OLS is only called
+     * if the registry has not been loaded or does not know the ontology.
+     *
+     * @param ontologyName ontology id or prefix
+     * @return Ontology the ontology
+     */
+    private Ontology getOntology(String ontologyName) {
+        Ontology ontology = OntologyRegistry.getInstance(backend).findOntology(ontologyName);
+        if (ontology == null) {
+            ontology = backend.getOntology(ontologyName);
+        }
+        return ontology;
+    }
+
     public void loadMetaOntologyData(String ontologyName, Integer olsDialogBrowseOntology) {
         if (!SEARCH_IN_ALL_ONTOLOGIES_AVAILABLE_IN_THE_OLS_REGISTRY.equals(ontologyName)) {
-            Ontology ontology = olsConnection.getOntology(ontologyName);
             JTextPane currentDefinitionsJTextPane = null;
             JTable currentTermDetailsJTable = null;
             if (olsDialogBrowseOntology == OLS_DIALOG_BROWSE_ONTOLOGY) {
@@ -3245,6 +3642,7 @@ public class OLSDialog extends javax.swing.JDialog {
                 currentTermDetailsJTable = termDetailsBrowseOntologyJTable;
             }
             try {
+                Ontology ontology = getOntology(ontologyName);
                 if(ontology != null && ontology.getDescription() != null) {
                     currentDefinitionsJTextPane.setText("Definition: " + ontology.getDescription());
                     currentDefinitionsJTextPane.setCaretPosition(0);
@@ -3263,7 +3661,7 @@ public class OLSDialog extends javax.swing.JDialog {
                         Util.writeToErrorLog("Error when trying to access OLS: ");
                     }
                 }
-            } catch (RestClientException ex) {
+            } catch (RestClientException | CancellationException ex) {
                 JOptionPane.showMessageDialog(
                         this,
                         DEFAULT_OLS_CONNECTION_ERROR,
@@ -3317,4 +3715,36 @@ public class OLSDialog extends javax.swing.JDialog {
     public ThrowableHandler getThrowableHandler() {
         return throwableHandler;
     }
+
+    /**
+     * Returns the hit, miss and eviction counters of the term cache shared by
+     * all the dialogs.
+     *
+     * @return the term cache statistics
+     */
+    public static CacheStatistics getCacheStatistics() {
+        return olsConnection.getStatistics();
+    }
+
+    /**
+     * Returns the number of requests of the default backend that were
+     * answered by an identical request already in flight.
+     *
+     * @return the number of coalesced requests
+     */
+    public static long getCoalescedRequests() {
+        return SINGLE_FLIGHT_BACKEND.getCoalescedCalls();
+    }
+
+    /**
+     * Returns the latency of the requests of an operation of the default
+     * backend, e.g. the p99 of "term", over its recent requests.
+     *
+     * @param operation  the operation, see {@link HedgingBackend#getOperations()}
+     * @param percentile the percentile
+     * @return the latency in milliseconds, -1 until enough requests have been recorded
+     */
+    public static long getRequestLatency(String operation, double percentile) {
+        return HEDGING_BACKEND.getLatencyPercentile(operation, percentile);
+    }
 }
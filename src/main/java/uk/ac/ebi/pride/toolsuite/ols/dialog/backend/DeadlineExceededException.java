@@ -0,0 +1,39 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.backend;
+
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Thrown by a backend when a call has not been answered before the deadline
+ * of its operation, see {@link HedgingBackend}. It is an I/O failure of the
+ * call like a connection timeout, so the callers handling the failures of the
+ * OLS client report it the same way.
+ * <p>
+ */
+public class DeadlineExceededException extends ResourceAccessException {
+
+    private final String operation;
+
+    private final long deadlineMillis;
+
+    public DeadlineExceededException(String operation, long deadlineMillis) {
+        super("No answer to '" + operation + "' within " + deadlineMillis + " ms");
+        this.operation = operation;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+}
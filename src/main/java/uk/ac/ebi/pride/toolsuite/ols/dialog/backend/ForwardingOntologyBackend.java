@@ -0,0 +1,105 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.backend;
+
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Ontology;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.SearchQuery;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Base class of the backend decorators: every call is forwarded to the
+ * delegate backend, subclasses override the calls they change. Decorators
+ * can be stacked, e.g. a mock backend behind a counting decorator.
+ * <p>
+ */
+public abstract class ForwardingOntologyBackend implements OntologyBackend {
+
+    private final OntologyBackend delegate;
+
+    protected ForwardingOntologyBackend(OntologyBackend delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Null delegate backend");
+        }
+        this.delegate = delegate;
+    }
+
+    public OntologyBackend getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public List<Ontology> getOntologies() {
+        return delegate.getOntologies();
+    }
+
+    @Override
+    public Ontology getOntology(String ontologyId) {
+        return delegate.getOntology(ontologyId);
+    }
+
+    @Override
+    public List<Term> getRootTerms(String ontologyId) {
+        return delegate.getRootTerms(ontologyId);
+    }
+
+    @Override
+    public List<Term> getTermChildren(Identifier termId, String ontologyId, int distance) {
+        return delegate.getTermChildren(termId, ontologyId, distance);
+    }
+
+    @Override
+    public List<Term> getTermParents(Identifier termId, String ontologyId, int distance) {
+        return delegate.getTermParents(termId, ontologyId, distance);
+    }
+
+    @Override
+    public Term getTermById(Identifier termId, String ontologyId) {
+        return delegate.getTermById(termId, ontologyId);
+    }
+
+    @Override
+    public SearchQuery getSearchQuery(int page, String name, String ontology, boolean exact, String field,
+                                      boolean obsoletes, int size) {
+        return delegate.getSearchQuery(page, name, ontology, exact, field, obsoletes, size);
+    }
+
+    @Override
+    public List<String> getTermDescription(Identifier termId, String ontologyId) {
+        return delegate.getTermDescription(termId, ontologyId);
+    }
+
+    @Override
+    public Map<String, String> getTermXrefs(Identifier termId, String ontologyId) {
+        return delegate.getTermXrefs(termId, ontologyId);
+    }
+
+    @Override
+    public Map<String, String> getOBOSynonyms(Identifier termId, String ontologyId) {
+        return delegate.getOBOSynonyms(termId, ontologyId);
+    }
+
+    @Override
+    public Map<String, List<String>> getAnnotations(Identifier termId, String ontologyId) {
+        return delegate.getAnnotations(termId, ontologyId);
+    }
+
+    @Override
+    public List<Term> getTermsByAnnotationData(String ontologyId, String annotationType, double from, double to) {
+        return delegate.getTermsByAnnotationData(ontologyId, annotationType, from, to);
+    }
+
+    @Override
+    public List<Term> getAllTermsFromOntology(String ontologyId) {
+        return delegate.getAllTermsFromOntology(ontologyId);
+    }
+}
@@ -0,0 +1,621 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.backend;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.ExecutionMode;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.ModeExecutor;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskUtil;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Ontology;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.SearchQuery;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Backend decorator bounding the latency of the calls. Every operation has a
+ * deadline, a call not answered in time fails with a
+ * {@link DeadlineExceededException}. The deadline is 30 s for the lookups,
+ * 2 min for the list of ontologies and none for the calls reading a whole
+ * ontology; {@value #DEADLINE_PROP} replaces all of them and
+ * ols-dialog.deadline.&lt;operation&gt;.millis the one of an operation
+ * (0 for no deadline), with the operation names of {@link #getOperations()}.
+ * <p>
+ * The idempotent lookups (terms, children, parents, roots, term details and
+ * search pages) are hedged: when the first attempt has not answered after the
+ * {@value #HEDGING_PERCENTILE_PROP} percentile (95 by default) of the recent
+ * latencies of the operation, a second attempt is sent and the first answer
+ * wins. The other attempt is cancelled, as the OLS client cannot abort its
+ * HTTP exchange its response is only discarded, but its latency is still
+ * recorded. Answers under a millisecond come from the term cache or the
+ * offline files and are not recorded. The hedges are limited to
+ * {@value #HEDGING_MAX_PERCENT_PROP} percent of the calls (10 by default), so
+ * a slow OLS does not get twice the load. Hedging is disabled with
+ * {@value #HEDGING_PROP}=false.
+ * <p>
+ * The attempts run on their own threads, in the current execution mode, and
+ * the caller waits for them interruptibly. An attempt holds one of as many
+ * permits as the request executor has threads (or its concurrency limit on
+ * virtual threads) until the OLS answers it, even once it has been cancelled:
+ * when the OLS stalls, the new calls wait for a permit until their deadline
+ * and no hedge is sent, instead of starting ever more threads.
+ * <p>
+ * This backend must be below a {@link SingleFlightBackend}, a hedge would
+ * otherwise be coalesced with the attempt it replaces.
+ * <p>
+ */
+@ThreadSafe
+public class HedgingBackend extends ForwardingOntologyBackend {
+
+    public static org.slf4j.Logger logger = LoggerFactory.getLogger(HedgingBackend.class);
+
+    public static final String DEADLINE_PROP = "ols-dialog.deadline.millis";
+
+    public static final String HEDGING_PROP = "ols-dialog.hedging.enabled";
+
+    public static final String HEDGING_PERCENTILE_PROP = "ols-dialog.hedging.percentile";
+
+    public static final String HEDGING_MIN_DELAY_PROP = "ols-dialog.hedging.minDelayMillis";
+
+    public static final String HEDGING_MAX_PERCENT_PROP = "ols-dialog.hedging.maxPercent";
+
+    public static final long DEFAULT_DEADLINE_MILLIS = 30000;
+
+    public static final int DEFAULT_HEDGING_PERCENTILE = 95;
+
+    public static final long DEFAULT_HEDGING_MIN_DELAY_MILLIS = 50;
+
+    public static final int DEFAULT_HEDGING_MAX_PERCENT = 10;
+
+    /**
+     * Number of recent latencies kept per operation.
+     */
+    private static final int WINDOW = 512;
+
+    /**
+     * Number of latencies needed before the calls are hedged.
+     */
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * Hedges allowed beyond the ratio, so the first slow calls can be hedged.
+     */
+    private static final int HEDGE_BURST = 10;
+
+    private static final long LOCAL_ANSWER_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private enum Operation {
+        ONTOLOGIES("ontologies", false, 4 * DEFAULT_DEADLINE_MILLIS),
+        ONTOLOGY("ontology", false, DEFAULT_DEADLINE_MILLIS),
+        ROOTS("roots", true, DEFAULT_DEADLINE_MILLIS),
+        CHILDREN("children", true, DEFAULT_DEADLINE_MILLIS),
+        PARENTS("parents", true, DEFAULT_DEADLINE_MILLIS),
+        TERM("term", true, DEFAULT_DEADLINE_MILLIS),
+        SEARCH("search", true, DEFAULT_DEADLINE_MILLIS),
+        DESCRIPTION("description", true, DEFAULT_DEADLINE_MILLIS),
+        XREFS("xrefs", true, DEFAULT_DEADLINE_MILLIS),
+        SYNONYMS("synonyms", true, DEFAULT_DEADLINE_MILLIS),
+        ANNOTATIONS("annotations", true, DEFAULT_DEADLINE_MILLIS),
+        ANNOTATION_RANGE("annotationRange", false, 0),
+        ALL_TERMS("allTerms", false, 0);
+
+        private final String name;
+
+        private final boolean idempotent;
+
+        private final long defaultDeadlineMillis;
+
+        Operation(String name, boolean idempotent, long defaultDeadlineMillis) {
+            this.name = name;
+            this.idempotent = idempotent;
+            this.defaultDeadlineMillis = defaultDeadlineMillis;
+        }
+    }
+
+    private final ModeExecutor executor = new ModeExecutor("ols-attempt");
+
+    private final Object permitsLock = new Object();
+
+    @GuardedBy("permitsLock")
+    private ExecutionMode permitsMode;
+
+    @GuardedBy("permitsLock")
+    private Semaphore permits;
+
+    private final Map<Operation, Long> deadlines = new EnumMap<>(Operation.class);
+
+    private final Map<Operation, LatencyWindow> latencies = new EnumMap<>(Operation.class);
+
+    private final boolean hedging;
+
+    private final long minHedgeDelay;
+
+    private final int maxHedgePercent;
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private final AtomicLong hedged = new AtomicLong();
+
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    private final AtomicLong deadlinesExceeded = new AtomicLong();
+
+    /**
+     * Create a backend with the deadlines and the hedging of the system
+     * properties.
+     *
+     * @param delegate the backend sending the requests
+     */
+    public HedgingBackend(OntologyBackend delegate) {
+        super(delegate);
+        Long deadline = Long.getLong(DEADLINE_PROP);
+        for (Operation operation : Operation.values()) {
+            long millis = Long.getLong("ols-dialog.deadline." + operation.name + ".millis",
+                    (deadline != null) ? deadline : operation.defaultDeadlineMillis);
+            deadlines.put(operation, TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis)));
+        }
+        int percentile = Math.min(99, Math.max(50, Integer.getInteger(HEDGING_PERCENTILE_PROP, DEFAULT_HEDGING_PERCENTILE)));
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyWindow(percentile));
+        }
+        this.hedging = Boolean.parseBoolean(System.getProperty(HEDGING_PROP, "true"));
+        this.minHedgeDelay = TimeUnit.MILLISECONDS.toNanos(
+                Math.max(0, Long.getLong(HEDGING_MIN_DELAY_PROP, DEFAULT_HEDGING_MIN_DELAY_MILLIS)));
+        this.maxHedgePercent = Math.max(0, Integer.getInteger(HEDGING_MAX_PERCENT_PROP, DEFAULT_HEDGING_MAX_PERCENT));
+    }
+
+    /**
+     * @return List the names of the operations, as used in the deadline properties
+     */
+    public static List<String> getOperations() {
+        List<String> names = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            names.add(operation.name);
+        }
+        return names;
+    }
+
+    /**
+     * Latency of an operation over its recent calls.
+     *
+     * @param operation  operation name, see {@link #getOperations()}
+     * @param percentile percentile, e.g. 99
+     * @return long the latency in milliseconds, -1 until enough calls have been recorded
+     */
+    public long getLatencyPercentile(String operation, double percentile) {
+        for (Operation op : Operation.values()) {
+            if (op.name.equals(operation)) {
+                long nanos = latencies.get(op).percentile(percentile);
+                return (nanos < 0) ? -1 : TimeUnit.NANOSECONDS.toMillis(nanos);
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + operation);
+    }
+
+    /**
+     * @return long number of calls received
+     */
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * @return long number of calls for which a second attempt was sent
+     */
+    public long getHedgedCalls() {
+        return hedged.get();
+    }
+
+    /**
+     * @return long number of calls answered by the second attempt
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * @return long number of calls that failed on their deadline
+     */
+    public long getDeadlinesExceeded() {
+        return deadlinesExceeded.get();
+    }
+
+    @Override
+    public List<Ontology> getOntologies() {
+        return call(Operation.ONTOLOGIES, new Callable<List<Ontology>>() {
+            @Override
+            public List<Ontology> call() {
+                return HedgingBackend.super.getOntologies();
+            }
+        });
+    }
+
+    @Override
+    public Ontology getOntology(final String ontologyId) {
+        return call(Operation.ONTOLOGY, new Callable<Ontology>() {
+            @Override
+            public Ontology call() {
+                return HedgingBackend.super.getOntology(ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getRootTerms(final String ontologyId) {
+        return call(Operation.ROOTS, new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return HedgingBackend.super.getRootTerms(ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getTermChildren(final Identifier termId, final String ontologyId, final int distance) {
+        return call(Operation.CHILDREN, new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return HedgingBackend.super.getTermChildren(termId, ontologyId, distance);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getTermParents(final Identifier termId, final String ontologyId, final int distance) {
+        return call(Operation.PARENTS, new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return HedgingBackend.super.getTermParents(termId, ontologyId, distance);
+            }
+        });
+    }
+
+    @Override
+    public Term getTermById(final Identifier termId, final String ontologyId) {
+        return call(Operation.TERM, new Callable<Term>() {
+            @Override
+            public Term call() {
+                return HedgingBackend.super.getTermById(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public SearchQuery getSearchQuery(final int page, final String name, final String ontology, final boolean exact,
+                                      final String field, final boolean obsoletes, final int size) {
+        return call(Operation.SEARCH, new Callable<SearchQuery>() {
+            @Override
+            public SearchQuery call() {
+                return HedgingBackend.super.getSearchQuery(page, name, ontology, exact, field, obsoletes, size);
+            }
+        });
+    }
+
+    @Override
+    public List<String> getTermDescription(final Identifier termId, final String ontologyId) {
+        return call(Operation.DESCRIPTION, new Callable<List<String>>() {
+            @Override
+            public List<String> call() {
+                return HedgingBackend.super.getTermDescription(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, String> getTermXrefs(final Identifier termId, final String ontologyId) {
+        return call(Operation.XREFS, new Callable<Map<String, String>>() {
+            @Override
+            public Map<String, String> call() {
+                return HedgingBackend.super.getTermXrefs(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, String> getOBOSynonyms(final Identifier termId, final String ontologyId) {
+        return call(Operation.SYNONYMS, new Callable<Map<String, String>>() {
+            @Override
+            public Map<String, String> call() {
+                return HedgingBackend.super.getOBOSynonyms(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, List<String>> getAnnotations(final Identifier termId, final String ontologyId) {
+        return call(Operation.ANNOTATIONS, new Callable<Map<String, List<String>>>() {
+            @Override
+            public Map<String, List<String>> call() {
+                return HedgingBackend.super.getAnnotations(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getTermsByAnnotationData(final String ontologyId, final String annotationType,
+                                               final double from, final double to) {
+        return call(Operation.ANNOTATION_RANGE, new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return HedgingBackend.super.getTermsByAnnotationData(ontologyId, annotationType, from, to);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getAllTermsFromOntology(final String ontologyId) {
+        return call(Operation.ALL_TERMS, new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return HedgingBackend.super.getAllTermsFromOntology(ontologyId);
+            }
+        });
+    }
+
+    /**
+     * Run the attempts of a call until one answers or the deadline passes.
+     */
+    private <V> V call(Operation operation, Callable<V> call) {
+        calls.incrementAndGet();
+        long deadline = deadlines.get(operation);
+        boolean hedge = hedging && operation.idempotent;
+        if (deadline == 0 && !hedge) {
+            try {
+                return call.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        // time after which a second attempt is sent, -1 for none
+        long hedgeDelay = hedge ? hedgeDelay(operation) : -1;
+        BlockingQueue<AttemptTask<V>> completed = new LinkedBlockingQueue<>();
+        List<AttemptTask<V>> attempts = new ArrayList<>(2);
+        long start = System.nanoTime();
+        try {
+            Semaphore permits = permits();
+            if (deadline == 0) {
+                permits.acquire();
+            } else if (!permits.tryAcquire(deadline, TimeUnit.NANOSECONDS)) {
+                throw deadlineExceeded(operation, deadline);
+            }
+            attempts.add(start(operation, call, permits, completed));
+            Throwable failure = null;
+            int pending = 1;
+            while (true) {
+                long elapsed = System.nanoTime() - start;
+                long wait = (deadline > 0) ? deadline - elapsed : Long.MAX_VALUE;
+                if (hedgeDelay >= 0) {
+                    wait = Math.min(wait, hedgeDelay - elapsed);
+                }
+                AttemptTask<V> done = (wait == Long.MAX_VALUE)
+                        ? completed.take() : completed.poll(Math.max(0, wait), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    if (hedgeDelay >= 0 && (deadline == 0 || System.nanoTime() - start < deadline)) {
+                        hedgeDelay = -1;
+                        Semaphore hedgePermits = permits();
+                        // no hedge over the budget, or when the requests in flight are at their limit
+                        if (hedged.get() < calls.get() * maxHedgePercent / 100 + HEDGE_BURST && hedgePermits.tryAcquire()) {
+                            hedged.incrementAndGet();
+                            logger.debug("'" + operation.name + "' not answered after "
+                                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms, sending a second attempt");
+                            attempts.add(start(operation, call, hedgePermits, completed));
+                            pending++;
+                        }
+                        continue;
+                    }
+                    throw deadlineExceeded(operation, deadline);
+                }
+                pending--;
+                try {
+                    V result = done.get();
+                    if (done != attempts.get(0)) {
+                        hedgeWins.incrementAndGet();
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    // an attempt failed, the answer of the other one is still welcome
+                    if (pending == 0) {
+                        return unwrap(failure);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            CancellationException cancelled = new CancellationException("Interrupted while waiting for '" + operation.name + "'");
+            cancelled.initCause(e);
+            throw cancelled;
+        } finally {
+            TaskUtil.cancelAll(attempts);
+        }
+    }
+
+    /**
+     * Start an attempt holding a permit, the permit is released when its
+     * thread is done with it.
+     */
+    private <V> AttemptTask<V> start(Operation operation, Callable<V> call, Semaphore permits,
+                                     BlockingQueue<AttemptTask<V>> completed) {
+        AttemptTask<V> attempt = new AttemptTask<>(new Attempt<>(operation, call), permits, completed);
+        try {
+            executor.execute(attempt);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return attempt;
+    }
+
+    /**
+     * Permits of the requests in flight for the current execution mode.
+     */
+    private Semaphore permits() {
+        ExecutionMode mode = TaskUtil.getExecutionMode();
+        synchronized (permitsLock) {
+            if (mode != permitsMode) {
+                permits = new Semaphore(TaskUtil.getRequestConcurrency());
+                permitsMode = mode;
+            }
+            return permits;
+        }
+    }
+
+    private DeadlineExceededException deadlineExceeded(Operation operation, long deadline) {
+        deadlinesExceeded.incrementAndGet();
+        logger.warn("'" + operation.name + "' not answered within " + TimeUnit.NANOSECONDS.toMillis(deadline) + " ms");
+        return new DeadlineExceededException(operation.name, TimeUnit.NANOSECONDS.toMillis(deadline));
+    }
+
+    /**
+     * Percentile of the recent latencies, -1 until enough calls have been
+     * recorded.
+     */
+    private long hedgeDelay(Operation operation) {
+        long latency = latencies.get(operation).hedgeLatency();
+        return (latency < 0) ? -1 : Math.max(latency, minHedgeDelay);
+    }
+
+    private static <V> V unwrap(Throwable failure) {
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw new IllegalStateException(failure);
+    }
+
+    /**
+     * An attempt of a call, its latency is recorded when it answers.
+     */
+    private class Attempt<V> implements Callable<V> {
+
+        private final Operation operation;
+
+        private final Callable<V> call;
+
+        private Attempt(Operation operation, Callable<V> call) {
+            this.operation = operation;
+            this.call = call;
+        }
+
+        @Override
+        public V call() throws Exception {
+            long start = System.nanoTime();
+            V result = call.call();
+            long latency = System.nanoTime() - start;
+            if (latency >= LOCAL_ANSWER_NANOS) {
+                latencies.get(operation).add(latency);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A started attempt. It holds its permit until its thread is done with
+     * it, even once cancelled: the OLS client cannot abort the request.
+     */
+    private static final class AttemptTask<V> extends FutureTask<V> {
+
+        private final Semaphore permits;
+
+        private final BlockingQueue<AttemptTask<V>> completed;
+
+        private AttemptTask(Callable<V> call, Semaphore permits, BlockingQueue<AttemptTask<V>> completed) {
+            super(call);
+            this.permits = permits;
+            this.completed = completed;
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                permits.release();
+            }
+        }
+
+        @Override
+        protected void done() {
+            completed.add(this);
+        }
+    }
+
+    /**
+     * Latencies of the last calls of an operation.
+     */
+    @ThreadSafe
+    private static final class LatencyWindow {
+
+        private final int hedgePercentile;
+
+        @GuardedBy("this")
+        private final long[] samples = new long[WINDOW];
+
+        @GuardedBy("this")
+        private int count;
+
+        @GuardedBy("this")
+        private int next;
+
+        @GuardedBy("this")
+        private int added;
+
+        private volatile long hedgeLatency = -1;
+
+        private LatencyWindow(int hedgePercentile) {
+            this.hedgePercentile = hedgePercentile;
+        }
+
+        private synchronized void add(long latency) {
+            samples[next] = latency;
+            next = (next + 1) % WINDOW;
+            count = Math.min(count + 1, WINDOW);
+            // the percentile is refreshed every few samples, not on every call
+            if (++added % 16 == 0 || count == MIN_SAMPLES) {
+                hedgeLatency = percentile(hedgePercentile);
+            }
+        }
+
+        private long hedgeLatency() {
+            return hedgeLatency;
+        }
+
+        private synchronized long percentile(double percentile) {
+            if (count < MIN_SAMPLES) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * count) - 1;
+            return sorted[Math.min(count - 1, Math.max(0, index))];
+        }
+    }
+}
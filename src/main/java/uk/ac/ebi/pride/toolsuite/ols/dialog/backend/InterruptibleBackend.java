@@ -0,0 +1,225 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.backend;
+
+import net.jcip.annotations.ThreadSafe;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskUtil;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Ontology;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.SearchQuery;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Backend decorator making the blocking calls interruptible. The HTTP
+ * exchange of the OLS client does not react to interrupts, so a call made by
+ * a task runs on the request executor and the task thread waits for it
+ * interruptibly. When the task is cancelled its thread is released at once:
+ * the request is cancelled with an interrupt, and if the exchange cannot be
+ * aborted its response is discarded when it arrives.
+ * <p>
+ * The calls made from a request thread, e.g. the fan-out of a task, run
+ * directly: the request threads are the ones interrupted on cancellation,
+ * and waiting there for another request thread could starve the executor.
+ * <p>
+ */
+@ThreadSafe
+public class InterruptibleBackend extends ForwardingOntologyBackend {
+
+    private final AtomicLong abandoned = new AtomicLong();
+
+    public InterruptibleBackend(OntologyBackend delegate) {
+        super(delegate);
+    }
+
+    /**
+     * @return long number of calls whose caller was interrupted before the response
+     */
+    public long getAbandonedCalls() {
+        return abandoned.get();
+    }
+
+    @Override
+    public List<Ontology> getOntologies() {
+        return call(new Callable<List<Ontology>>() {
+            @Override
+            public List<Ontology> call() {
+                return InterruptibleBackend.super.getOntologies();
+            }
+        });
+    }
+
+    @Override
+    public Ontology getOntology(final String ontologyId) {
+        return call(new Callable<Ontology>() {
+            @Override
+            public Ontology call() {
+                return InterruptibleBackend.super.getOntology(ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getRootTerms(final String ontologyId) {
+        return call(new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return InterruptibleBackend.super.getRootTerms(ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getTermChildren(final Identifier termId, final String ontologyId, final int distance) {
+        return call(new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return InterruptibleBackend.super.getTermChildren(termId, ontologyId, distance);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getTermParents(final Identifier termId, final String ontologyId, final int distance) {
+        return call(new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return InterruptibleBackend.super.getTermParents(termId, ontologyId, distance);
+            }
+        });
+    }
+
+    @Override
+    public Term getTermById(final Identifier termId, final String ontologyId) {
+        return call(new Callable<Term>() {
+            @Override
+            public Term call() {
+                return InterruptibleBackend.super.getTermById(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public SearchQuery getSearchQuery(final int page, final String name, final String ontology, final boolean exact,
+                                      final String field, final boolean obsoletes, final int size) {
+        return call(new Callable<SearchQuery>() {
+            @Override
+            public SearchQuery call() {
+                return InterruptibleBackend.super.getSearchQuery(page, name, ontology, exact, field, obsoletes, size);
+            }
+        });
+    }
+
+    @Override
+    public List<String> getTermDescription(final Identifier termId, final String ontologyId) {
+        return call(new Callable<List<String>>() {
+            @Override
+            public List<String> call() {
+                return InterruptibleBackend.super.getTermDescription(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, String> getTermXrefs(final Identifier termId, final String ontologyId) {
+        return call(new Callable<Map<String, String>>() {
+            @Override
+            public Map<String, String> call() {
+                return InterruptibleBackend.super.getTermXrefs(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, String> getOBOSynonyms(final Identifier termId, final String ontologyId) {
+        return call(new Callable<Map<String, String>>() {
+            @Override
+            public Map<String, String> call() {
+                return InterruptibleBackend.super.getOBOSynonyms(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, List<String>> getAnnotations(final Identifier termId, final String ontologyId) {
+        return call(new Callable<Map<String, List<String>>>() {
+            @Override
+            public Map<String, List<String>> call() {
+                return InterruptibleBackend.super.getAnnotations(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getTermsByAnnotationData(final String ontologyId, final String annotationType,
+                                               final double from, final double to) {
+        return call(new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return InterruptibleBackend.super.getTermsByAnnotationData(ontologyId, annotationType, from, to);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getAllTermsFromOntology(final String ontologyId) {
+        return call(new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return InterruptibleBackend.super.getAllTermsFromOntology(ontologyId);
+            }
+        });
+    }
+
+    /**
+     * Run the call on the request executor and wait for it, or run it
+     * directly on a request thread.
+     */
+    private <V> V call(Callable<V> call) {
+        if (TaskUtil.isRequestThread()) {
+            try {
+                return call.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Interrupted before the request");
+        }
+        Future<V> future = TaskUtil.getRequestExecutor().submit(call);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            abandoned.incrementAndGet();
+            Thread.currentThread().interrupt();
+            CancellationException cancelled = new CancellationException("Interrupted while waiting for the request");
+            cancelled.initCause(e);
+            throw cancelled;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.backend;
+
+import net.jcip.annotations.ThreadSafe;
+import uk.ac.ebi.pride.utilities.ols.web.service.client.OLSClient;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Ontology;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.SearchQuery;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * {@link OntologyBackend} on top of an OLSClient. The client can be a plain
+ * OLSClient or one of its subclasses, e.g. the CachedOLSClient or the
+ * OfflineOLSClient.
+ * <p>
+ */
+@ThreadSafe
+public class OLSBackend implements OntologyBackend {
+
+    private final OLSClient olsClient;
+
+    public OLSBackend(OLSClient olsClient) {
+        if (olsClient == null) {
+            throw new IllegalArgumentException("Null OLS client");
+        }
+        this.olsClient = olsClient;
+    }
+
+    public OLSClient getOlsClient() {
+        return olsClient;
+    }
+
+    @Override
+    public List<Ontology> getOntologies() {
+        return olsClient.getOntologies();
+    }
+
+    @Override
+    public Ontology getOntology(String ontologyId) {
+        return olsClient.getOntology(ontologyId);
+    }
+
+    @Override
+    public List<Term> getRootTerms(String ontologyId) {
+        return olsClient.getRootTerms(ontologyId);
+    }
+
+    @Override
+    public List<Term> getTermChildren(Identifier termId, String ontologyId, int distance) {
+        return olsClient.getTermChildren(termId, ontologyId, distance);
+    }
+
+    @Override
+    public List<Term> getTermParents(Identifier termId, String ontologyId, int distance) {
+        return olsClient.getTermParents(termId, ontologyId, distance);
+    }
+
+    @Override
+    public Term getTermById(Identifier termId, String ontologyId) {
+        return olsClient.getTermById(termId, ontologyId);
+    }
+
+    @Override
+    public SearchQuery getSearchQuery(int page, String name, String ontology, boolean exact, String field,
+                                      boolean obsoletes, int size) {
+        return olsClient.getSearchQuery(page, name, ontology, exact, field, obsoletes, size);
+    }
+
+    @Override
+    public List<String> getTermDescription(Identifier termId, String ontologyId) {
+        return olsClient.getTermDescription(termId, ontologyId);
+    }
+
+    @Override
+    public Map<String, String> getTermXrefs(Identifier termId, String ontologyId) {
+        return olsClient.getTermXrefs(termId, ontologyId);
+    }
+
+    @Override
+    public Map<String, String> getOBOSynonyms(Identifier termId, String ontologyId) {
+        return olsClient.getOBOSynonyms(termId, ontologyId);
+    }
+
+    @Override
+    public Map<String, List<String>> getAnnotations(Identifier termId, String ontologyId) {
+        return olsClient.getAnnotations(termId, ontologyId);
+    }
+
+    @Override
+    public List<Term> getTermsByAnnotationData(String ontologyId, String annotationType, double from, double to) {
+        return olsClient.getTermsByAnnotationData(ontologyId, annotationType, from, to);
+    }
+
+    @Override
+    public List<Term> getAllTermsFromOntology(String ontologyId) {
+        return olsClient.getAllTermsFromOntology(ontologyId);
+    }
+}
@@ -0,0 +1,110 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.backend;
+
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Ontology;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.SearchQuery;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * The ontology operations used by the dialog and its tasks. The methods have
+ * the names and the semantics of the OLSClient ones, so {@link OLSBackend}
+ * is a plain adapter, and other sources (local files, mocks, several
+ * services) can be used by the dialog without changing it. Decorators such
+ * as caches extend {@link ForwardingOntologyBackend}.
+ * <p>
+ * Implementations are called concurrently from the request executor and
+ * must be thread safe. Failures are reported as RuntimeExceptions, the way
+ * the OLSClient reports them.
+ */
+public interface OntologyBackend {
+
+    /**
+     * All the ontologies of the backend.
+     *
+     * @return List<Ontology> the ontologies
+     */
+    List<Ontology> getOntologies();
+
+    /**
+     * @param ontologyId ontology id, e.g. "ms"
+     * @return Ontology the ontology, null if it is unknown
+     */
+    Ontology getOntology(String ontologyId);
+
+    /**
+     * @param ontologyId ontology id
+     * @return List<Term> the root terms of the ontology
+     */
+    List<Term> getRootTerms(String ontologyId);
+
+    /**
+     * @param termId     term identifier
+     * @param ontologyId ontology id
+     * @param distance   number of levels, 1 for the direct children
+     * @return List<Term> the descendants of the term
+     */
+    List<Term> getTermChildren(Identifier termId, String ontologyId, int distance);
+
+    /**
+     * @param termId     term identifier
+     * @param ontologyId ontology id
+     * @param distance   number of levels, 1 for the direct parents
+     * @return List<Term> the ancestors of the term
+     */
+    List<Term> getTermParents(Identifier termId, String ontologyId, int distance);
+
+    /**
+     * @param termId     term identifier
+     * @param ontologyId ontology id
+     * @return Term the term, null if it is unknown
+     */
+    Term getTermById(Identifier termId, String ontologyId);
+
+    /**
+     * Search the terms by label and synonyms.
+     *
+     * @param page      page of results, starting at 0
+     * @param name      the query
+     * @param ontology  comma separated ontologies to search, null for all
+     * @param exact     true to return only exact matches
+     * @param field     field to search, null for the default fields
+     * @param obsoletes true to return obsolete terms
+     * @param size      number of results per page
+     * @return SearchQuery the page of results
+     */
+    SearchQuery getSearchQuery(int page, String name, String ontology, boolean exact, String field,
+                               boolean obsoletes, int size);
+
+    List<String> getTermDescription(Identifier termId, String ontologyId);
+
+    Map<String, String> getTermXrefs(Identifier termId, String ontologyId);
+
+    Map<String, String> getOBOSynonyms(Identifier termId, String ontologyId);
+
+    Map<String, List<String>> getAnnotations(Identifier termId, String ontologyId);
+
+    /**
+     * Terms with a numeric annotation in a range, e.g. the PSI-MOD
+     * modifications by DiffMono mass.
+     *
+     * @param ontologyId     ontology id
+     * @param annotationType annotation, e.g. DiffMono
+     * @param from           lowest value
+     * @param to             highest value
+     * @return List<Term> the terms
+     */
+    List<Term> getTermsByAnnotationData(String ontologyId, String annotationType, double from, double to);
+
+    List<Term> getAllTermsFromOntology(String ontologyId);
+}
@@ -0,0 +1,319 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.backend;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.ModeExecutor;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Ontology;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.SearchQuery;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Backend decorator coalescing identical concurrent calls. A call is keyed
+ * by its operation and arguments; the first caller starts it (a flight) on a
+ * thread of its own, the callers arriving while it is in flight wait for the
+ * same result instead of sending the same request again. Nothing is kept
+ * once the call completes, caching is the job of the term cache.
+ * <p>
+ * No caller is tied to the flight: every caller waits interruptibly, and an
+ * interrupted caller only leaves. The flight is cancelled when its last
+ * caller has left, a caller joining a cancelled flight starts a new one.
+ * <p>
+ * The results are shared by all the coalesced callers and must be treated
+ * as read only. A failure of the call is reported to all of them.
+ * <p>
+ */
+@ThreadSafe
+public class SingleFlightBackend extends ForwardingOntologyBackend {
+
+    private final ModeExecutor executor = new ModeExecutor("ols-flight");
+
+    private final Object flightsLock = new Object();
+
+    @GuardedBy("flightsLock")
+    private final Map<List<Object>, Flight> flights = new HashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public SingleFlightBackend(OntologyBackend delegate) {
+        super(delegate);
+    }
+
+    /**
+     * @return long number of calls received
+     */
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * @return long number of calls answered by a call already in flight
+     */
+    public long getCoalescedCalls() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return int number of distinct calls in flight
+     */
+    public int getInFlight() {
+        synchronized (flightsLock) {
+            return flights.size();
+        }
+    }
+
+    @Override
+    public List<Ontology> getOntologies() {
+        return call(key("ontologies"), new Callable<List<Ontology>>() {
+            @Override
+            public List<Ontology> call() {
+                return SingleFlightBackend.super.getOntologies();
+            }
+        });
+    }
+
+    @Override
+    public Ontology getOntology(final String ontologyId) {
+        return call(key("ontology", ontologyId), new Callable<Ontology>() {
+            @Override
+            public Ontology call() {
+                return SingleFlightBackend.super.getOntology(ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getRootTerms(final String ontologyId) {
+        return call(key("roots", ontologyId), new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return SingleFlightBackend.super.getRootTerms(ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getTermChildren(final Identifier termId, final String ontologyId, final int distance) {
+        return call(key("children", termId, ontologyId, distance), new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return SingleFlightBackend.super.getTermChildren(termId, ontologyId, distance);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getTermParents(final Identifier termId, final String ontologyId, final int distance) {
+        return call(key("parents", termId, ontologyId, distance), new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return SingleFlightBackend.super.getTermParents(termId, ontologyId, distance);
+            }
+        });
+    }
+
+    @Override
+    public Term getTermById(final Identifier termId, final String ontologyId) {
+        return call(key("term", termId, ontologyId), new Callable<Term>() {
+            @Override
+            public Term call() {
+                return SingleFlightBackend.super.getTermById(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public SearchQuery getSearchQuery(final int page, final String name, final String ontology, final boolean exact,
+                                      final String field, final boolean obsoletes, final int size) {
+        return call(key("search", page, name, ontology, exact, field, obsoletes, size), new Callable<SearchQuery>() {
+            @Override
+            public SearchQuery call() {
+                return SingleFlightBackend.super.getSearchQuery(page, name, ontology, exact, field, obsoletes, size);
+            }
+        });
+    }
+
+    @Override
+    public List<String> getTermDescription(final Identifier termId, final String ontologyId) {
+        return call(key("description", termId, ontologyId), new Callable<List<String>>() {
+            @Override
+            public List<String> call() {
+                return SingleFlightBackend.super.getTermDescription(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, String> getTermXrefs(final Identifier termId, final String ontologyId) {
+        return call(key("xrefs", termId, ontologyId), new Callable<Map<String, String>>() {
+            @Override
+            public Map<String, String> call() {
+                return SingleFlightBackend.super.getTermXrefs(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, String> getOBOSynonyms(final Identifier termId, final String ontologyId) {
+        return call(key("synonyms", termId, ontologyId), new Callable<Map<String, String>>() {
+            @Override
+            public Map<String, String> call() {
+                return SingleFlightBackend.super.getOBOSynonyms(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, List<String>> getAnnotations(final Identifier termId, final String ontologyId) {
+        return call(key("annotations", termId, ontologyId), new Callable<Map<String, List<String>>>() {
+            @Override
+            public Map<String, List<String>> call() {
+                return SingleFlightBackend.super.getAnnotations(termId, ontologyId);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getTermsByAnnotationData(final String ontologyId, final String annotationType,
+                                               final double from, final double to) {
+        return call(key("annotationRange", ontologyId, annotationType, from, to), new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return SingleFlightBackend.super.getTermsByAnnotationData(ontologyId, annotationType, from, to);
+            }
+        });
+    }
+
+    @Override
+    public List<Term> getAllTermsFromOntology(final String ontologyId) {
+        return call(key("allTerms", ontologyId), new Callable<List<Term>>() {
+            @Override
+            public List<Term> call() {
+                return SingleFlightBackend.super.getAllTermsFromOntology(ontologyId);
+            }
+        });
+    }
+
+    /**
+     * Key of a call, identifiers are compared by their value.
+     */
+    private static List<Object> key(Object... arguments) {
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] instanceof Identifier) {
+                arguments[i] = ((Identifier) arguments[i]).getIdentifier();
+            }
+        }
+        return Arrays.asList(arguments);
+    }
+
+    /**
+     * Join the identical call in flight, or start it, and wait for its result.
+     */
+    @SuppressWarnings("unchecked")
+    private <V> V call(List<Object> key, Callable<V> call) {
+        calls.incrementAndGet();
+        while (true) {
+            Flight flight;
+            boolean started = false;
+            synchronized (flightsLock) {
+                flight = flights.get(key);
+                if (flight == null) {
+                    flight = new Flight(key, (Callable<Object>) call);
+                    flights.put(key, flight);
+                    started = true;
+                } else {
+                    coalesced.incrementAndGet();
+                }
+                flight.waiters++;
+            }
+            if (started) {
+                try {
+                    executor.execute(flight);
+                } catch (RuntimeException e) {
+                    leave(flight);
+                    throw e;
+                }
+            }
+            try {
+                return (V) flight.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                CancellationException cancelled = new CancellationException("Interrupted while waiting for " + key);
+                cancelled.initCause(e);
+                throw cancelled;
+            } catch (CancellationException e) {
+                // cancelled after its last caller left, start it again
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            } finally {
+                leave(flight);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Interrupted while waiting for " + key);
+            }
+        }
+    }
+
+    /**
+     * A caller stops waiting, the flight is cancelled if nobody waits for it.
+     */
+    private void leave(Flight flight) {
+        synchronized (flightsLock) {
+            if (--flight.waiters > 0 || flight.isDone()) {
+                return;
+            }
+            flights.remove(flight.key, flight);
+        }
+        flight.cancel(true);
+    }
+
+    /**
+     * A call in flight, removed from the flights when it completes.
+     */
+    private final class Flight extends FutureTask<Object> {
+
+        private final List<Object> key;
+
+        @GuardedBy("flightsLock")
+        private int waiters;
+
+        private Flight(List<Object> key, Callable<Object> call) {
+            super(call);
+            this.key = key;
+        }
+
+        @Override
+        protected void done() {
+            synchronized (flightsLock) {
+                flights.remove(key, this);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.cache;
+
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Immutable key of the term cache. A cached OLS response is identified by the
+ * ontology, the term identifier and the type of call that produced it, the
+ * same term can then be cached once as a term, once as its children, etc.
+ * <p>
+ */
+public final class CacheKey {
+
+    /**
+     * The OLS calls that can be cached.
+     */
+    public enum CallType {
+        TERM_BY_ID,
+        TERM_CHILDREN,
+        ROOT_TERMS,
+        TERM_DESCRIPTION,
+        TERM_XREFS,
+        OBO_SYNONYMS,
+        ANNOTATIONS
+    }
+
+    private final CallType callType;
+
+    private final String ontology;
+
+    private final String identifier;
+
+    private final int hash;
+
+    public CacheKey(CallType callType, String ontology, String identifier) {
+        if (callType == null) {
+            throw new IllegalArgumentException("Null call type");
+        }
+        this.callType = callType;
+        this.ontology = (ontology == null) ? "" : ontology.toLowerCase();
+        this.identifier = (identifier == null) ? "" : identifier;
+        this.hash = 31 * (31 * callType.hashCode() + this.ontology.hashCode()) + this.identifier.hashCode();
+    }
+
+    public CacheKey(CallType callType, String ontology, Identifier identifier) {
+        this(callType, ontology, (identifier == null) ? null : identifier.getIdentifier());
+    }
+
+    public CallType getCallType() {
+        return callType;
+    }
+
+    public String getOntology() {
+        return ontology;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CacheKey)) return false;
+        CacheKey other = (CacheKey) o;
+        return callType == other.callType
+                && ontology.equals(other.ontology)
+                && identifier.equals(other.identifier);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return callType + "[" + ontology + ":" + identifier + "]";
+    }
+}
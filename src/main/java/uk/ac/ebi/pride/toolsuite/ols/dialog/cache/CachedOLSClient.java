@@ -0,0 +1,174 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.cache;
+
+import uk.ac.ebi.pride.utilities.ols.web.service.client.OLSClient;
+import uk.ac.ebi.pride.utilities.ols.web.service.config.AbstractOLSWsConfig;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * OLSClient that keeps the term level responses (terms, children, roots,
+ * descriptions, xrefs, synonyms and annotations) in a {@link TermCache}. The
+ * OLSDialog keeps a single static instance, so the cache is shared by all the
+ * dialogs opened in the same JVM.
+ * <p>
+ * The limits of the default cache can be changed with the system properties
+ * {@value #MAX_ENTRIES_PROP}, {@value #MAX_BYTES_PROP} and {@value #TTL_MINUTES_PROP}.
+ * <p>
+ * Cached lists and maps are shared between callers and must be treated as read only.
+ */
+public class CachedOLSClient extends OLSClient {
+
+    public static final String MAX_ENTRIES_PROP = "ols-dialog.cache.maxEntries";
+
+    public static final String MAX_BYTES_PROP = "ols-dialog.cache.maxBytes";
+
+    public static final String TTL_MINUTES_PROP = "ols-dialog.cache.ttlMinutes";
+
+    public static final int DEFAULT_MAX_ENTRIES = 20000;
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    public static final long DEFAULT_TTL_MINUTES = 12 * 60;
+
+    private final TermCache cache;
+
+    /**
+     * Create a cached client with the default (or system properties) cache limits.
+     *
+     * @param config OLS web service configuration
+     */
+    public CachedOLSClient(AbstractOLSWsConfig config) {
+        this(config, new TermCache(
+                Integer.getInteger(MAX_ENTRIES_PROP, DEFAULT_MAX_ENTRIES),
+                Long.getLong(MAX_BYTES_PROP, DEFAULT_MAX_BYTES),
+                Long.getLong(TTL_MINUTES_PROP, DEFAULT_TTL_MINUTES),
+                TimeUnit.MINUTES));
+    }
+
+    /**
+     * Create a cached client on top of a given cache.
+     *
+     * @param config OLS web service configuration
+     * @param cache  term cache
+     */
+    public CachedOLSClient(AbstractOLSWsConfig config, TermCache cache) {
+        super(config);
+        if (cache == null) {
+            throw new IllegalArgumentException("Null term cache");
+        }
+        this.cache = cache;
+    }
+
+    public TermCache getCache() {
+        return cache;
+    }
+
+    public CacheStatistics getStatistics() {
+        return cache.getStatistics();
+    }
+
+    @Override
+    public Term getTermById(Identifier termId, String ontologyId) {
+        CacheKey key = new CacheKey(CacheKey.CallType.TERM_BY_ID, ontologyId, termId);
+        Term term = (Term) cache.get(key);
+        if (term == null) {
+            term = super.getTermById(termId, ontologyId);
+            cache.put(key, term);
+        }
+        return term;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Term> getTermChildren(Identifier termOBOId, String ontologyId, int distance) {
+        String identifier = (termOBOId == null) ? null : termOBOId.getIdentifier() + "#" + distance;
+        CacheKey key = new CacheKey(CacheKey.CallType.TERM_CHILDREN, ontologyId, identifier);
+        List<Term> children = (List<Term>) cache.get(key);
+        if (children == null) {
+            children = readOnly(super.getTermChildren(termOBOId, ontologyId, distance));
+            cache.put(key, children);
+        }
+        return children;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Term> getRootTerms(String ontologyID) {
+        CacheKey key = new CacheKey(CacheKey.CallType.ROOT_TERMS, ontologyID, (String) null);
+        List<Term> roots = (List<Term>) cache.get(key);
+        if (roots == null) {
+            roots = readOnly(super.getRootTerms(ontologyID));
+            cache.put(key, roots);
+        }
+        return roots;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> getTermDescription(Identifier termId, String ontologyId) {
+        CacheKey key = new CacheKey(CacheKey.CallType.TERM_DESCRIPTION, ontologyId, termId);
+        List<String> description = (List<String>) cache.get(key);
+        if (description == null) {
+            description = readOnly(super.getTermDescription(termId, ontologyId));
+            cache.put(key, description);
+        }
+        return description;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, String> getTermXrefs(Identifier termId, String ontologyId) {
+        CacheKey key = new CacheKey(CacheKey.CallType.TERM_XREFS, ontologyId, termId);
+        Map<String, String> xrefs = (Map<String, String>) cache.get(key);
+        if (xrefs == null) {
+            xrefs = readOnly(super.getTermXrefs(termId, ontologyId));
+            cache.put(key, xrefs);
+        }
+        return xrefs;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, String> getOBOSynonyms(Identifier identifier, String ontology) {
+        CacheKey key = new CacheKey(CacheKey.CallType.OBO_SYNONYMS, ontology, identifier);
+        Map<String, String> synonyms = (Map<String, String>) cache.get(key);
+        if (synonyms == null) {
+            synonyms = readOnly(super.getOBOSynonyms(identifier, ontology));
+            cache.put(key, synonyms);
+        }
+        return synonyms;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, List<String>> getAnnotations(Identifier termId, String ontologyId) {
+        CacheKey key = new CacheKey(CacheKey.CallType.ANNOTATIONS, ontologyId, termId);
+        Map<String, List<String>> annotations = (Map<String, List<String>>) cache.get(key);
+        if (annotations == null) {
+            annotations = readOnly(super.getAnnotations(termId, ontologyId));
+            cache.put(key, annotations);
+        }
+        return annotations;
+    }
+
+    private static <T> List<T> readOnly(List<T> list) {
+        return (list == null) ? null : Collections.unmodifiableList(list);
+    }
+
+    private static <K, V> Map<K, V> readOnly(Map<K, V> map) {
+        return (map == null) ? null : Collections.unmodifiableMap(map);
+    }
+}
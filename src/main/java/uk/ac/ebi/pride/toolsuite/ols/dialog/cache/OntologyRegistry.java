@@ -0,0 +1,268 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Ontology;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * The registry of the ontologies available in the OLS. The registry is kept
+ * in memory for the whole JVM and persisted to a local snapshot file, so a new
+ * dialog can fill the ontology list from disk without waiting for the OLS.
+ * <p>
+ * A registry read from disk is revalidated once per JVM: the OLS registry is
+ * fetched again and compared with the snapshot (the comparison includes the
+ * version and loading dates of each ontology). If it changed, the snapshot
+ * is rewritten.
+ * <p>
+ * There is one registry per backend, a dialog on a mock or offline backend
+ * never sees the ontologies of another one. Only the registry of the
+ * persistent backend (the default OLS backend of the dialogs, see
+ * {@link #setPersistentBackend(OntologyBackend)}) is written to the
+ * snapshot, whose location can be changed with the system property
+ * {@value #SNAPSHOT_FILE_PROP}.
+ */
+@ThreadSafe
+public class OntologyRegistry {
+
+    public static org.slf4j.Logger logger = LoggerFactory.getLogger(OntologyRegistry.class);
+
+    public static final String SNAPSHOT_FILE_PROP = "ols-dialog.registry.snapshot";
+
+    private static final String DEFAULT_SNAPSHOT_FILE = ".ols-dialog" + File.separator + "ontology-registry.json";
+
+    /**
+     * Registries by backend, compared by identity.
+     */
+    private static final Map<OntologyBackend, OntologyRegistry> REGISTRIES = new WeakHashMap<>();
+
+    private static volatile OntologyBackend persistentBackend;
+
+    private final File snapshotFile;
+
+    private final ObjectMapper mapper;
+
+    private final AtomicBoolean revalidationStarted = new AtomicBoolean(false);
+
+    private final Object lock = new Object();
+
+    private volatile Snapshot snapshot;
+
+    public OntologyRegistry(File snapshotFile) {
+        this.snapshotFile = snapshotFile;
+        this.mapper = new ObjectMapper();
+        this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+    }
+
+    /**
+     * Registry of a backend, shared by all the dialogs using it.
+     *
+     * @param backend the backend
+     * @return OntologyRegistry the registry of the backend
+     */
+    public static OntologyRegistry getInstance(OntologyBackend backend) {
+        synchronized (REGISTRIES) {
+            OntologyRegistry registry = REGISTRIES.get(backend);
+            if (registry == null) {
+                registry = new OntologyRegistry((backend == persistentBackend) ? defaultSnapshotFile() : null);
+                REGISTRIES.put(backend, registry);
+            }
+            return registry;
+        }
+    }
+
+    /**
+     * Set the backend whose registry is persisted to the snapshot file. It
+     * must be set before the registry of the backend is used.
+     *
+     * @param backend the default backend of the dialogs
+     */
+    public static void setPersistentBackend(OntologyBackend backend) {
+        persistentBackend = backend;
+    }
+
+    /**
+     * Return the ontologies of the registry. The in memory registry is used
+     * first, then the local snapshot and finally the OLS.
+     *
+     * @param olsClient client used if nothing has been loaded yet
+     * @return List<Ontology> the ontologies in the OLS
+     */
+    public List<Ontology> getOntologies(OntologyBackend olsClient) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (lock) {
+                current = snapshot;
+                if (current == null) {
+                    current = readSnapshot();
+                    if (current == null) {
+                        current = fetch(olsClient);
+                        writeSnapshot(current);
+                    }
+                    snapshot = current;
+                }
+            }
+        }
+        return current.ontologies;
+    }
+
+    /**
+     * Find an ontology by preferred prefix or by id, e.g. "MS" or "ms".
+     *
+     * @param prefix ontology prefix or id
+     * @return Ontology the ontology, null if it is not in the loaded registry
+     */
+    public Ontology findOntology(String prefix) {
+        Snapshot current = snapshot;
+        if (current == null || prefix == null) {
+            return null;
+        }
+        return current.index.get(prefix.toLowerCase());
+    }
+
+    /**
+     * Return true if the registry was read from disk and nobody started to
+     * revalidate it yet. The first caller gets true, the next ones get false.
+     *
+     * @return boolean true if the caller should revalidate the registry
+     */
+    public boolean claimRevalidation() {
+        Snapshot current = snapshot;
+        return current != null && current.fromDisk && revalidationStarted.compareAndSet(false, true);
+    }
+
+    /**
+     * Fetch the registry from the OLS and replace the current one if it changed.
+     *
+     * @param olsClient OLS client
+     * @return boolean true if the registry changed
+     */
+    public boolean revalidate(OntologyBackend olsClient) {
+        Snapshot fresh = fetch(olsClient);
+        synchronized (lock) {
+            Snapshot current = snapshot;
+            if (current != null && Arrays.equals(current.fingerprint, fresh.fingerprint)) {
+                logger.debug("Ontology registry snapshot is up to date");
+                return false;
+            }
+            snapshot = fresh;
+            writeSnapshot(fresh);
+            return true;
+        }
+    }
+
+    private Snapshot fetch(OntologyBackend olsClient) {
+        List<Ontology> ontologies = olsClient.getOntologies();
+        if (ontologies == null) {
+            ontologies = new ArrayList<>();
+        }
+        return new Snapshot(ontologies, serialize(ontologies), false);
+    }
+
+    private byte[] serialize(List<Ontology> ontologies) {
+        try {
+            return mapper.writeValueAsBytes(ontologies);
+        } catch (IOException e) {
+            logger.warn("Failed to serialize the ontology registry", e);
+            return new byte[0];
+        }
+    }
+
+    private Snapshot readSnapshot() {
+        if (snapshotFile == null || !snapshotFile.isFile()) {
+            return null;
+        }
+        try {
+            byte[] content = Files.readAllBytes(snapshotFile.toPath());
+            List<Ontology> ontologies = mapper.readValue(content, new TypeReference<List<Ontology>>() {});
+            if (ontologies == null || ontologies.isEmpty()) {
+                return null;
+            }
+            return new Snapshot(ontologies, serialize(ontologies), true);
+        } catch (IOException e) {
+            logger.warn("Failed to read the ontology registry snapshot " + snapshotFile, e);
+            return null;
+        }
+    }
+
+    private void writeSnapshot(Snapshot current) {
+        if (snapshotFile == null || current.fingerprint.length == 0 || current.ontologies.isEmpty()) {
+            return;
+        }
+        try {
+            File parent = snapshotFile.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                logger.warn("Failed to create the directory " + parent);
+                return;
+            }
+            File tmp = new File(snapshotFile.getPath() + ".tmp");
+            Files.write(tmp.toPath(), current.fingerprint);
+            Files.move(tmp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Failed to write the ontology registry snapshot " + snapshotFile, e);
+        }
+    }
+
+    private static File defaultSnapshotFile() {
+        String path = System.getProperty(SNAPSHOT_FILE_PROP);
+        if (path != null && !path.trim().isEmpty()) {
+            return new File(path.trim());
+        }
+        return new File(System.getProperty("user.home"), DEFAULT_SNAPSHOT_FILE);
+    }
+
+    /**
+     * An immutable version of the registry with its prefix index.
+     */
+    private static final class Snapshot {
+
+        private final List<Ontology> ontologies;
+
+        private final Map<String, Ontology> index;
+
+        private final byte[] fingerprint;
+
+        private final boolean fromDisk;
+
+        private Snapshot(List<Ontology> ontologies, byte[] fingerprint, boolean fromDisk) {
+            this.ontologies = Collections.unmodifiableList(new ArrayList<>(ontologies));
+            this.fingerprint = fingerprint;
+            this.fromDisk = fromDisk;
+            this.index = new HashMap<>();
+            for (Ontology ontology : ontologies) {
+                if (ontology.getId() != null) {
+                    index.put(ontology.getId().toLowerCase(), ontology);
+                }
+                if (ontology.getConfig() != null && ontology.getConfig().getPreferredPrefix() != null) {
+                    index.put(ontology.getConfig().getPreferredPrefix().toLowerCase(), ontology);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.cache;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.ITerm;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * A bounded LRU cache for OLS responses. Entries are evicted when the maximum
+ * number of entries or the byte budget is exceeded (least recently used first),
+ * and they expire once their time to live is over. The byte budget is based on
+ * an estimation of the size of the cached objects, not on a real measurement.
+ * <p>
+ */
+@ThreadSafe
+public class TermCache {
+
+    /**
+     * Rough size of an object header plus a reference, used by the estimation.
+     */
+    private static final int OBJECT_OVERHEAD = 16;
+
+    /**
+     * Rough size of a term without its strings.
+     */
+    private static final int TERM_OVERHEAD = 256;
+
+    private final int maxEntries;
+
+    private final long maxBytes;
+
+    private final long ttlNanos;
+
+    private final Object lock = new Object();
+
+    @GuardedBy("lock")
+    private final LinkedHashMap<CacheKey, Entry> entries;
+
+    @GuardedBy("lock")
+    private long currentBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param maxEntries maximum number of entries kept in the cache
+     * @param maxBytes   estimated byte budget of the cache
+     * @param ttl        time to live of an entry
+     * @param unit       time unit of the time to live
+     */
+    public TermCache(int maxEntries, long maxBytes, long ttl, TimeUnit unit) {
+        if (maxEntries <= 0 || maxBytes <= 0 || ttl <= 0) {
+            throw new IllegalArgumentException("Cache limits must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, true);
+    }
+
+    /**
+     * Return the cached value for the key, or null if the value is not cached
+     * or has expired.
+     *
+     * @param key cache key
+     * @return Object cached value
+     */
+    public Object get(CacheKey key) {
+        synchronized (lock) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.isExpired(System.nanoTime())) {
+                    remove(key, entry);
+                    expirations.incrementAndGet();
+                } else {
+                    hits.incrementAndGet();
+                    return entry.value;
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Add a value to the cache. Null values are not cached. A value larger
+     * than the whole byte budget is not cached either.
+     *
+     * @param key   cache key
+     * @param value value to cache
+     */
+    public void put(CacheKey key, Object value) {
+        if (key == null || value == null) {
+            return;
+        }
+        long weight = estimateSize(value);
+        if (weight > maxBytes) {
+            return;
+        }
+        synchronized (lock) {
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                currentBytes -= previous.weight;
+            }
+            entries.put(key, new Entry(value, weight, System.nanoTime() + ttlNanos));
+            currentBytes += weight;
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Remove a single entry from the cache.
+     *
+     * @param key cache key
+     */
+    public void invalidate(CacheKey key) {
+        synchronized (lock) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                remove(key, entry);
+            }
+        }
+    }
+
+    /**
+     * Remove all the entries, the counters are kept.
+     */
+    public void clear() {
+        synchronized (lock) {
+            entries.clear();
+            currentBytes = 0;
+        }
+    }
+
+    /**
+     * Remove all the expired entries.
+     */
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        synchronized (lock) {
+            Iterator<Map.Entry<CacheKey, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next().getValue();
+                if (entry.isExpired(now)) {
+                    iterator.remove();
+                    currentBytes -= entry.weight;
+                    expirations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public CacheStatistics getStatistics() {
+        synchronized (lock) {
+            return new CacheStatistics(hits.get(), misses.get(), evictions.get(), expirations.get(),
+                    entries.size(), currentBytes);
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @GuardedBy("lock")
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<CacheKey, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            currentBytes -= eldest.weight;
+            evictions.incrementAndGet();
+        }
+    }
+
+    @GuardedBy("lock")
+    private void remove(CacheKey key, Entry entry) {
+        entries.remove(key);
+        currentBytes -= entry.weight;
+    }
+
+    /**
+     * Estimate the memory used by a cached OLS response.
+     *
+     * @param value cached value
+     * @return long estimated number of bytes
+     */
+    static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return OBJECT_OVERHEAD + 24 + 2L * ((String) value).length();
+        }
+        if (value instanceof ITerm) {
+            ITerm term = (ITerm) value;
+            long size = TERM_OVERHEAD + estimateSize(term.getName());
+            if (term.getGlobalId() != null) {
+                size += estimateSize(term.getGlobalId().getIdentifier());
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            long size = OBJECT_OVERHEAD + 24;
+            for (Object item : (Collection<?>) value) {
+                size += 8 + estimateSize(item);
+            }
+            return size;
+        }
+        if (value instanceof Map) {
+            long size = OBJECT_OVERHEAD + 48;
+            for (Map.Entry<?, ?> item : ((Map<?, ?>) value).entrySet()) {
+                size += 32 + estimateSize(item.getKey()) + estimateSize(item.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Object[]) {
+            long size = OBJECT_OVERHEAD + 8;
+            for (Object item : (Object[]) value) {
+                size += 8 + estimateSize(item);
+            }
+            return size;
+        }
+        return OBJECT_OVERHEAD * 4;
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+
+        private final long weight;
+
+        private final long expiresAt;
+
+        private Entry(Object value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
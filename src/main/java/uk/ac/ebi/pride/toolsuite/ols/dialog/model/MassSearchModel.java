@@ -2,7 +2,7 @@ package uk.ac.ebi.pride.toolsuite.ols.dialog.model;
 
 import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
 
-import javax.swing.table.DefaultTableModel;
+import java.util.Arrays;
 
 /**
  * This code is licensed under the Apache License, Version 2.0 (the
@@ -14,30 +14,107 @@ import javax.swing.table.DefaultTableModel;
  * ==Overview==
  * <p>
  * This model contains the the properties of the model for the table of modifications.
+ * The mass of every row is kept in a primitive array next to the terms. The
+ * cell shows the annotation of the term as written in the OLS, it is looked up
+ * the first time the cell is painted and kept for the next paints.
  * <p>
  * Created by ypriverol (ypriverol@gmail.com) on 09/07/2017.
  */
-public class MassSearchModel extends DefaultTableModel{
+public class MassSearchModel extends TermTableModel {
 
-    Class[] types = new Class [] {Term.class, Term.class, String.class};
     private static String[] header = new String [] {"Accession", "CV Term", "Mass Type Value"};
 
+    private double[] masses = new double[terms.length];
 
+    private String[] massTypes = new String[terms.length];
+
+    private String[] massLabels = new String[terms.length];
 
     /**
      * MassSearchModel Constructor
      *
      */
     public MassSearchModel() {
-        super(new Object [][] {},header);
+        super(header, new Class [] {Term.class, Term.class, String.class});
     }
-    public Class getColumnClass(int columnIndex) {
-        return types [columnIndex];
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        if (columnIndex == 2) {
+            Term term = (Term) getTerm(rowIndex);
+            String label = massLabels[rowIndex];
+            if (label == null && massTypes[rowIndex] != null) {
+                label = term.getXRefValue(massTypes[rowIndex]);
+                massLabels[rowIndex] = label;
+            }
+            return label;
+        }
+        return super.getValueAt(rowIndex, columnIndex);
+    }
+
+    /**
+     * Mass of a row for its mass type.
+     * @param rowIndex row in the model
+     * @return double the mass, NaN if the annotation is not a number
+     */
+    public double getMass(int rowIndex) {
+        getTerm(rowIndex);
+        return masses[rowIndex];
     }
 
     public void addRow(Term term, String massType){
-        addRow(new Object[]{
-                term, term, term.getXRefValue(massType)
-        });
+        double mass = Double.NaN;
+        String value = term.getXRefValue(massType);
+        if (value != null) {
+            try {
+                mass = Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                // the annotation is still shown as it is
+            }
+        }
+        addRow(term, mass, massType);
+    }
+
+    /**
+     * Add a term with a mass already known, e.g. read from the mass index.
+     * @param term PSI-MOD term
+     * @param mass mass of the searched type
+     * @param massType mass annotation shown in the table, e.g. DiffMono
+     */
+    public void addRow(Term term, double mass, String massType){
+        addRows(new Term[]{term}, new double[]{mass}, massType);
+    }
+
+    /**
+     * Add a batch of terms with their masses, the table is notified once.
+     * @param batch PSI-MOD terms
+     * @param batchMasses masses of the terms, in the same order
+     * @param massType mass annotation shown in the table, e.g. DiffMono
+     */
+    public void addRows(Term[] batch, double[] batchMasses, String massType){
+        if (batch.length != batchMasses.length) {
+            throw new IllegalArgumentException("One mass is needed per term");
+        }
+        ensureCapacity(size + batch.length);
+        System.arraycopy(batchMasses, 0, masses, size, batchMasses.length);
+        Arrays.fill(massTypes, size, size + batch.length, massType);
+        addTerms(batch);
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        super.ensureCapacity(capacity);
+        if (masses.length < terms.length) {
+            masses = Arrays.copyOf(masses, terms.length);
+            massTypes = Arrays.copyOf(massTypes, terms.length);
+            massLabels = Arrays.copyOf(massLabels, terms.length);
+        }
+    }
+
+    @Override
+    protected void clearColumns() {
+        masses = new double[terms.length];
+        massTypes = new String[terms.length];
+        massLabels = new String[terms.length];
     }
 }
@@ -0,0 +1,54 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.model;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Generation counter of the content of a table. Every time the table is
+ * cleared the generation is increased. A task records the generation it
+ * started under and drops its results once the generation has changed, so
+ * the output of an old query is never mixed with the output of a new one.
+ * <p>
+ */
+@ThreadSafe
+public class ResultGeneration {
+
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Current generation, to be recorded by a task when it is created.
+     *
+     * @return long current generation
+     */
+    public long current() {
+        return generation.get();
+    }
+
+    /**
+     * Start a new generation, all the results of the previous ones become stale.
+     *
+     * @return long the new generation
+     */
+    public long next() {
+        return generation.incrementAndGet();
+    }
+
+    /**
+     * Return true if results of the given generation can still be shown.
+     *
+     * @param stamp generation recorded by the task
+     * @return boolean true if it is the current generation
+     */
+    public boolean isCurrent(long stamp) {
+        return generation.get() == stamp;
+    }
+}
@@ -0,0 +1,157 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.model;
+
+import uk.ac.ebi.pride.utilities.ols.web.service.model.ITerm;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Table model of the term search results, every row is a term shown in the
+ * "Accession" and "CV Term" columns. The terms are kept in a plain array
+ * that grows by doubling; a batch of terms is appended with a single rows
+ * inserted event and clearing the model only drops the array.
+ * <p>
+ * Like any Swing model it must only be used on the EDT.
+ */
+public class TermTableModel extends AbstractTableModel {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final String[] DEFAULT_HEADER = new String[]{"Accession", "CV Term"};
+
+    private final String[] header;
+
+    private final Class[] types;
+
+    protected ITerm[] terms = new ITerm[INITIAL_CAPACITY];
+
+    protected int size = 0;
+
+    /**
+     * Model with the Accession and CV Term columns.
+     * @param termClass class of the terms, used to pick the cell renderer
+     */
+    public TermTableModel(Class<? extends ITerm> termClass) {
+        this(DEFAULT_HEADER, new Class[]{termClass, termClass});
+    }
+
+    protected TermTableModel(String[] header, Class[] types) {
+        this.header = header;
+        this.types = types;
+    }
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return header.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return header[column];
+    }
+
+    @Override
+    public Class getColumnClass(int columnIndex) {
+        return types[columnIndex];
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return getTerm(rowIndex);
+    }
+
+    public ITerm getTerm(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= size) {
+            throw new IndexOutOfBoundsException("Row " + rowIndex + " of " + size);
+        }
+        return terms[rowIndex];
+    }
+
+    /**
+     * Append one term.
+     * @param term the term
+     */
+    public void addTerm(ITerm term) {
+        ensureCapacity(size + 1);
+        terms[size] = term;
+        size++;
+        fireTableRowsInserted(size - 1, size - 1);
+    }
+
+    /**
+     * Append a batch of terms, the table is notified once.
+     * @param batch the terms
+     */
+    public void addTerms(ITerm[] batch) {
+        if (batch == null || batch.length == 0) {
+            return;
+        }
+        int first = size;
+        ensureCapacity(size + batch.length);
+        System.arraycopy(batch, 0, terms, size, batch.length);
+        size += batch.length;
+        fireTableRowsInserted(first, size - 1);
+    }
+
+    /**
+     * Append a batch of terms, the table is notified once.
+     * @param batch the terms
+     */
+    public void addTerms(List<? extends ITerm> batch) {
+        if (batch != null) {
+            addTerms(batch.toArray(new ITerm[batch.size()]));
+        }
+    }
+
+    /**
+     * Remove all the rows.
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        terms = new ITerm[INITIAL_CAPACITY];
+        size = 0;
+        clearColumns();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Called by clear, for subclasses keeping other columns.
+     */
+    protected void clearColumns() {
+    }
+
+    /**
+     * Grow the arrays to hold at least the given number of rows.
+     * @param capacity number of rows
+     */
+    protected void ensureCapacity(int capacity) {
+        if (capacity > terms.length) {
+            terms = Arrays.copyOf(terms, newCapacity(terms.length, capacity));
+        }
+    }
+
+    protected static int newCapacity(int current, int capacity) {
+        return Math.max(current * 2, capacity);
+    }
+}
@@ -0,0 +1,385 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.offline;
+
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Streaming parser of OBO 1.2/1.4 files. The file is read line by line and
+ * only the [Term] stanzas are kept. Large files are cut in chunks at stanza
+ * boundaries and the chunks are parsed in parallel, every chunk reading its
+ * own byte range of the file.
+ * <p>
+ */
+public class OboParser {
+
+    public static org.slf4j.Logger logger = LoggerFactory.getLogger(OboParser.class);
+
+    /**
+     * Files smaller than this are parsed in a single chunk.
+     */
+    private static final long MIN_CHUNK_SIZE = 4L * 1024 * 1024;
+
+    private final int threads;
+
+    public OboParser() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param threads maximum number of chunks parsed in parallel
+     */
+    public OboParser(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Read the header of an OBO file, the lines before the first stanza.
+     *
+     * @param file OBO file
+     * @return Map tag to value of the header, e.g. "ontology" to "ms"
+     * @throws IOException if the file can not be read
+     */
+    public static Map<String, String> readHeader(File file) throws IOException {
+        Map<String, String> header = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null && !line.startsWith("[")) {
+                int colon = line.indexOf(':');
+                if (colon > 0 && !header.containsKey(line.substring(0, colon).trim())) {
+                    header.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+                }
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Parse the terms of an OBO file.
+     *
+     * @param file OBO file
+     * @return List<OboTerm> the terms, in no particular order
+     * @throws IOException if the file can not be read
+     */
+    public List<OboTerm> parse(final File file) throws IOException {
+        long start = System.nanoTime();
+        final long[] boundaries = findChunks(file);
+        List<OboTerm> terms = new ArrayList<>();
+
+        if (boundaries.length == 2) {
+            terms.addAll(parseRange(file, boundaries[0], boundaries[1]));
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, boundaries.length - 1),
+                    new ParserThreadFactory());
+            try {
+                List<Future<List<OboTerm>>> chunks = new ArrayList<>();
+                for (int i = 0; i < boundaries.length - 1; i++) {
+                    final long from = boundaries[i];
+                    final long to = boundaries[i + 1];
+                    chunks.add(executor.submit(new Callable<List<OboTerm>>() {
+                        @Override
+                        public List<OboTerm> call() throws Exception {
+                            return parseRange(file, from, to);
+                        }
+                    }));
+                }
+                for (Future<List<OboTerm>> chunk : chunks) {
+                    terms.addAll(chunk.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while parsing " + file, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Failed to parse " + file, e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        logger.info("Parsed " + terms.size() + " terms from " + file.getName() + " in " + (boundaries.length - 1)
+                + " chunk(s) in " + (System.nanoTime() - start) / 1000000 + " ms");
+        return terms;
+    }
+
+    /**
+     * Cut the file in byte ranges that start at the beginning of a stanza.
+     */
+    private long[] findChunks(File file) throws IOException {
+        long length = file.length();
+        int chunks = (int) Math.max(1, Math.min(threads * 2L, length / MIN_CHUNK_SIZE));
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            for (int i = 1; i < chunks; i++) {
+                long boundary = nextStanza(raf, Math.max(length * i / chunks, boundaries.get(boundaries.size() - 1)));
+                if (boundary < 0) {
+                    break;
+                }
+                if (boundary > boundaries.get(boundaries.size() - 1)) {
+                    boundaries.add(boundary);
+                }
+            }
+        }
+        boundaries.add(length);
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Position of the first line starting with '[' after the given position,
+     * -1 if there is none.
+     */
+    private static long nextStanza(RandomAccessFile raf, long position) throws IOException {
+        raf.seek(position);
+        byte[] buffer = new byte[64 * 1024];
+        long offset = position;
+        boolean lineStart = position == 0;
+        int read;
+        while ((read = raf.read(buffer)) > 0) {
+            for (int i = 0; i < read; i++) {
+                if (lineStart && buffer[i] == '[') {
+                    return offset + i;
+                }
+                lineStart = buffer[i] == '\n';
+            }
+            offset += read;
+        }
+        return -1;
+    }
+
+    private List<OboTerm> parseRange(File file, long from, long to) throws IOException {
+        List<OboTerm> terms = new ArrayList<>();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            channel.position(from);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new RangeInputStream(Channels.newInputStream(channel), to - from), StandardCharsets.UTF_8), 64 * 1024);
+            OboTerm term = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '!') {
+                    continue;
+                }
+                if (line.charAt(0) == '[') {
+                    term = line.equals("[Term]") ? new OboTerm() : null;
+                    if (term != null) {
+                        terms.add(term);
+                    }
+                } else if (term != null) {
+                    int colon = line.indexOf(':');
+                    if (colon > 0) {
+                        readTag(term, line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+                    }
+                }
+            }
+        }
+        // stanzas without id are not usable
+        List<OboTerm> valid = new ArrayList<>(terms.size());
+        for (OboTerm term : terms) {
+            if (term.getId() != null) {
+                valid.add(term);
+            }
+        }
+        return valid;
+    }
+
+    private static void readTag(OboTerm term, String tag, String value) {
+        switch (tag) {
+            case "id":
+                term.setId(stripComment(value));
+                break;
+            case "name":
+                term.setName(value);
+                break;
+            case "def":
+                term.setDefinition(readQuoted(value));
+                break;
+            case "synonym":
+                String synonym = readQuoted(value);
+                int end = closingQuote(value);
+                String[] qualifiers = (end < 0) ? new String[0] : value.substring(end + 1).trim().split("\\s+");
+                term.getSynonyms().put(synonym, (qualifiers.length > 0 && !qualifiers[0].startsWith("[")) ? qualifiers[0] : "");
+                break;
+            case "xref":
+                readXref(term, stripQualifiers(value));
+                break;
+            case "is_a":
+                addParent(term, stripComment(value).split("\\s+")[0]);
+                break;
+            case "relationship":
+                String[] relationship = stripComment(value).split("\\s+");
+                if (relationship.length > 1 && relationship[0].equals("part_of")) {
+                    addParent(term, relationship[1]);
+                }
+                break;
+            case "is_obsolete":
+                term.setObsolete(Boolean.parseBoolean(value));
+                break;
+            case "property_value":
+                int space = value.indexOf(' ');
+                if (space > 0) {
+                    String property = value.substring(space + 1).trim();
+                    term.addAnnotation(value.substring(0, space),
+                            property.startsWith("\"") ? readQuoted(property) : property.split("\\s+")[0]);
+                }
+                break;
+            default:
+                term.addAnnotation(tag, stripComment(value));
+        }
+    }
+
+    private static void addParent(OboTerm term, String parent) {
+        if (!term.getParents().contains(parent)) {
+            term.getParents().add(parent);
+        }
+    }
+
+    /**
+     * Read an xref, either a mass annotation such as DiffMono: "15.994915"
+     * or a database reference such as PubMed:18688235.
+     */
+    private static void readXref(OboTerm term, String value) {
+        int colon = value.indexOf(':');
+        if (colon <= 0) {
+            term.getXrefs().put(value, "");
+            return;
+        }
+        String database = value.substring(0, colon).trim();
+        String reference = value.substring(colon + 1).trim();
+        term.getXrefs().put(database, reference.startsWith("\"") ? readQuoted(reference) : reference);
+    }
+
+    private static String stripComment(String value) {
+        int comment = value.indexOf(" !");
+        return (comment < 0) ? value.trim() : value.substring(0, comment).trim();
+    }
+
+    private static String stripQualifiers(String value) {
+        value = stripComment(value);
+        int end = closingQuote(value);
+        int qualifiers = value.indexOf(" {", Math.max(0, end));
+        return (qualifiers < 0) ? value : value.substring(0, qualifiers).trim();
+    }
+
+    /**
+     * Read the first quoted string of a value, with the OBO escapes removed.
+     */
+    private static String readQuoted(String value) {
+        int start = value.indexOf('"');
+        if (start < 0) {
+            return value;
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = start + 1; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                text.append(next == 'n' ? '\n' : (next == 't' ? '\t' : next));
+            } else if (c == '"') {
+                break;
+            } else {
+                text.append(c);
+            }
+        }
+        return text.toString();
+    }
+
+    private static int closingQuote(String value) {
+        int start = value.indexOf('"');
+        if (start < 0) {
+            return -1;
+        }
+        for (int i = start + 1; i < value.length(); i++) {
+            if (value.charAt(i) == '\\') {
+                i++;
+            } else if (value.charAt(i) == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stream limited to a number of bytes, used to read one chunk of a file.
+     */
+    private static class RangeInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        private RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read();
+            if (read >= 0) {
+                remaining--;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+
+    private static class ParserThreadFactory implements ThreadFactory {
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "obo-parser");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
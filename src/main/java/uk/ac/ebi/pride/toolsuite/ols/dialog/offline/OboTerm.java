@@ -0,0 +1,112 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.offline;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * A [Term] stanza of an OBO file, as read by the {@link OboParser}. Only the
+ * tags used by the dialog are kept: name, definition, synonyms, xrefs (the
+ * PSI-MOD masses are xrefs such as DiffMono: "15.994915"), the is_a and
+ * part_of parents and the other tags as annotations.
+ * <p>
+ */
+public class OboTerm {
+
+    private String id;
+
+    private String name;
+
+    private String definition;
+
+    private boolean obsolete;
+
+    private final Map<String, String> synonyms = new LinkedHashMap<>();
+
+    private final Map<String, String> xrefs = new LinkedHashMap<>();
+
+    private final List<String> parents = new ArrayList<>();
+
+    private final Map<String, List<String>> annotations = new LinkedHashMap<>();
+
+    public String getId() {
+        return id;
+    }
+
+    void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDefinition() {
+        return definition;
+    }
+
+    void setDefinition(String definition) {
+        this.definition = definition;
+    }
+
+    public boolean isObsolete() {
+        return obsolete;
+    }
+
+    void setObsolete(boolean obsolete) {
+        this.obsolete = obsolete;
+    }
+
+    /**
+     * Synonyms of the term with their scope, e.g. EXACT or RELATED.
+     *
+     * @return Map synonym to scope
+     */
+    public Map<String, String> getSynonyms() {
+        return synonyms;
+    }
+
+    /**
+     * Cross references of the term, database to value.
+     *
+     * @return Map database to value
+     */
+    public Map<String, String> getXrefs() {
+        return xrefs;
+    }
+
+    /**
+     * Ids of the is_a and part_of parents.
+     *
+     * @return List<String> parent ids
+     */
+    public List<String> getParents() {
+        return parents;
+    }
+
+    public Map<String, List<String>> getAnnotations() {
+        return annotations;
+    }
+
+    void addAnnotation(String key, String value) {
+        List<String> values = annotations.get(key);
+        if (values == null) {
+            values = new ArrayList<>(1);
+            annotations.put(key, values);
+        }
+        values.add(value);
+    }
+}
@@ -0,0 +1,456 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.offline;
+
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.cache.CachedOLSClient;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.util.OlsJsonUtil;
+import uk.ac.ebi.pride.utilities.ols.web.service.config.AbstractOLSWsConfig;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Ontology;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.SearchQuery;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.SearchResult;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * OLSClient that answers from local OBO files for the ontologies it has a
+ * file for, and from the OLS (through the term cache) for the others. The
+ * files are read from the directory given by the system property
+ * {@value #DIR_PROP}; only their headers are read when the client is
+ * created, an ontology is parsed the first time it is used. With
+ * {@value #ONLY_PROP} set to true the OLS is never contacted, which allows
+ * the dialog to be used without network access.
+ * <p>
+ * The search responses are built with the same Jackson mapping the OLSClient
+ * uses to read the OLS responses, so the search, browse and mass search tasks
+ * work unchanged on top of this client.
+ * <p>
+ */
+public class OfflineOLSClient extends CachedOLSClient {
+
+    public static org.slf4j.Logger logger = LoggerFactory.getLogger(OfflineOLSClient.class);
+
+    public static final String DIR_PROP = "ols-dialog.offline.dir";
+
+    public static final String ONLY_PROP = "ols-dialog.offline.only";
+
+    /**
+     * OBO files by ontology id and preferred prefix, lower case.
+     */
+    private final Map<String, OboFile> files = new LinkedHashMap<>();
+
+    private final boolean offlineOnly;
+
+    private final OboParser parser = new OboParser();
+
+    /**
+     * Create a client on the OBO files of the directory given by the system
+     * properties.
+     *
+     * @param config OLS web service configuration, used for the ontologies without file
+     */
+    public OfflineOLSClient(AbstractOLSWsConfig config) {
+        this(config, new File(System.getProperty(DIR_PROP, ".")), Boolean.getBoolean(ONLY_PROP));
+    }
+
+    /**
+     * Create a client on the OBO files of a directory.
+     *
+     * @param config      OLS web service configuration, used for the ontologies without file
+     * @param directory   directory of the .obo files
+     * @param offlineOnly true to never contact the OLS
+     */
+    public OfflineOLSClient(AbstractOLSWsConfig config, File directory, boolean offlineOnly) {
+        super(config);
+        this.offlineOnly = offlineOnly;
+        File[] oboFiles = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().toLowerCase().endsWith(".obo");
+            }
+        });
+        if (oboFiles == null) {
+            logger.warn("Offline ontology directory " + directory + " can not be read");
+            return;
+        }
+        for (File file : oboFiles) {
+            try {
+                Map<String, String> header = OboParser.readHeader(file);
+                String name = file.getName().substring(0, file.getName().length() - ".obo".length());
+                String id = header.containsKey("ontology") ? header.get("ontology") : name;
+                String title = header.containsKey("title") ? header.get("title") : id.toUpperCase();
+                OboFile oboFile = new OboFile(file, id.toLowerCase(), title);
+                files.put(id.toLowerCase(), oboFile);
+                if (header.containsKey("idspace")) {
+                    files.put(header.get("idspace").split("\\s+")[0].toLowerCase(), oboFile);
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to read the OBO file " + file + ": " + e.getMessage());
+            }
+        }
+        logger.info("Offline ontologies: " + getOfflineOntologies());
+    }
+
+    public boolean isOfflineOnly() {
+        return offlineOnly;
+    }
+
+    /**
+     * Ids of the ontologies answered from local files.
+     *
+     * @return Set<String> ontology ids
+     */
+    public Set<String> getOfflineOntologies() {
+        Set<String> ids = new HashSet<>();
+        for (OboFile oboFile : files.values()) {
+            ids.add(oboFile.id);
+        }
+        return ids;
+    }
+
+    /**
+     * The store of an ontology, parsed on first use.
+     *
+     * @param ontologyId ontology id or preferred prefix
+     * @return OfflineTermStore the store, null if the ontology has no local file
+     */
+    public OfflineTermStore getStore(String ontologyId) {
+        OboFile oboFile = (ontologyId == null) ? null : files.get(ontologyId.trim().toLowerCase());
+        return (oboFile == null) ? null : oboFile.getStore();
+    }
+
+    @Override
+    public Term getTermById(Identifier termId, String ontologyId) {
+        OfflineTermStore store = getStore(ontologyId);
+        if (store != null) {
+            return store.getTerm(termId);
+        }
+        return offlineOnly ? null : super.getTermById(termId, ontologyId);
+    }
+
+    @Override
+    public List<Term> getTermChildren(Identifier termOBOId, String ontologyId, int distance) {
+        OfflineTermStore store = getStore(ontologyId);
+        if (store != null) {
+            return store.getChildren(termOBOId, distance);
+        }
+        return offlineOnly ? Collections.<Term>emptyList() : super.getTermChildren(termOBOId, ontologyId, distance);
+    }
+
+    @Override
+    public List<Term> getTermParents(Identifier termOBOId, String ontologyId, int distance) {
+        OfflineTermStore store = getStore(ontologyId);
+        if (store != null) {
+            return store.getParents(termOBOId, distance);
+        }
+        return offlineOnly ? Collections.<Term>emptyList() : super.getTermParents(termOBOId, ontologyId, distance);
+    }
+
+    @Override
+    public List<Term> getRootTerms(String ontologyID) {
+        OfflineTermStore store = getStore(ontologyID);
+        if (store != null) {
+            return store.getRootTerms();
+        }
+        return offlineOnly ? Collections.<Term>emptyList() : super.getRootTerms(ontologyID);
+    }
+
+    @Override
+    public List<String> getTermDescription(Identifier termId, String ontologyId) {
+        OfflineTermStore store = getStore(ontologyId);
+        if (store != null) {
+            return store.getDescription(termId);
+        }
+        return offlineOnly ? Collections.<String>emptyList() : super.getTermDescription(termId, ontologyId);
+    }
+
+    @Override
+    public Map<String, String> getTermXrefs(Identifier termId, String ontologyId) {
+        OfflineTermStore store = getStore(ontologyId);
+        if (store != null) {
+            return store.getXrefs(termId);
+        }
+        return offlineOnly ? Collections.<String, String>emptyMap() : super.getTermXrefs(termId, ontologyId);
+    }
+
+    @Override
+    public Map<String, String> getOBOSynonyms(Identifier identifier, String ontology) {
+        OfflineTermStore store = getStore(ontology);
+        if (store != null) {
+            return store.getSynonyms(identifier);
+        }
+        return offlineOnly ? Collections.<String, String>emptyMap() : super.getOBOSynonyms(identifier, ontology);
+    }
+
+    @Override
+    public Map<String, List<String>> getAnnotations(Identifier termId, String ontologyId) {
+        OfflineTermStore store = getStore(ontologyId);
+        if (store != null) {
+            return store.getAnnotations(termId);
+        }
+        return offlineOnly ? Collections.<String, List<String>>emptyMap() : super.getAnnotations(termId, ontologyId);
+    }
+
+    @Override
+    public List<Term> getTermsByAnnotationData(String ontologyID, String annotationType, double from, double to) {
+        OfflineTermStore store = getStore(ontologyID);
+        if (store != null) {
+            return store.getTermsByAnnotation(annotationType, from, to);
+        }
+        return offlineOnly ? Collections.<Term>emptyList() : super.getTermsByAnnotationData(ontologyID, annotationType, from, to);
+    }
+
+    @Override
+    public List<Term> getAllTermsFromOntology(String ontologyID) {
+        OfflineTermStore store = getStore(ontologyID);
+        if (store != null) {
+            return store.getAllTerms();
+        }
+        return offlineOnly ? Collections.<Term>emptyList() : super.getAllTermsFromOntology(ontologyID);
+    }
+
+    /**
+     * The OLS ontologies, followed by the local ones the OLS does not know. If
+     * the OLS can not be reached only the local ontologies are returned.
+     */
+    @Override
+    public List<Ontology> getOntologies() {
+        List<Ontology> ontologies = new ArrayList<>();
+        if (!offlineOnly) {
+            try {
+                List<Ontology> remote = super.getOntologies();
+                if (remote != null) {
+                    ontologies.addAll(remote);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Failed to retrieve the OLS ontologies, only the offline ones are available: " + e.getMessage());
+            }
+        }
+        Set<String> known = new HashSet<>();
+        for (Ontology ontology : ontologies) {
+            if (ontology.getId() != null) {
+                known.add(ontology.getId().toLowerCase());
+            }
+        }
+        for (OboFile oboFile : files.values()) {
+            if (known.add(oboFile.id)) {
+                ontologies.add(oboFile.getOntology());
+            }
+        }
+        return ontologies;
+    }
+
+    @Override
+    public Ontology getOntology(String id) {
+        OboFile oboFile = (id == null) ? null : files.get(id.toLowerCase());
+        if (oboFile != null && offlineOnly) {
+            return oboFile.getOntology();
+        }
+        Ontology ontology = null;
+        if (!offlineOnly) {
+            try {
+                ontology = super.getOntology(id);
+            } catch (RuntimeException e) {
+                if (oboFile == null) {
+                    throw e;
+                }
+            }
+        }
+        return (ontology == null && oboFile != null) ? oboFile.getOntology() : ontology;
+    }
+
+    /**
+     * Search the labels and synonyms of the local ontologies of the filter
+     * (a comma separated list of ontologies, all of them if null). The
+     * ontologies without file are searched in the OLS; when a filter mixes
+     * both, the local hits come first and the OLS hits follow them, in pages
+     * of the same size.
+     */
+    @Override
+    public SearchQuery getSearchQuery(int page, String name, String ontology, boolean exact, String field,
+                                      boolean obsoletes, int size) {
+        List<OfflineTermStore> stores = new ArrayList<>();
+        StringBuilder remote = new StringBuilder();
+        if (ontology == null) {
+            if (!offlineOnly) {
+                return super.getSearchQuery(page, name, ontology, exact, field, obsoletes, size);
+            }
+            for (String id : getOfflineOntologies()) {
+                stores.add(getStore(id));
+            }
+        } else {
+            for (String member : ontology.split(",")) {
+                OfflineTermStore store = getStore(member);
+                if (store != null) {
+                    stores.add(store);
+                } else if (!member.trim().isEmpty() && !offlineOnly) {
+                    remote.append(remote.length() == 0 ? "" : ",").append(member.trim());
+                }
+            }
+            if (stores.isEmpty() && remote.length() > 0) {
+                return super.getSearchQuery(page, name, ontology, exact, field, obsoletes, size);
+            }
+        }
+
+        List<Term> hits = new ArrayList<>();
+        for (OfflineTermStore store : stores) {
+            for (Term term : store.getIndex().search(name, Integer.MAX_VALUE)) {
+                if (!exact || (term.getName() != null && term.getName().equalsIgnoreCase(name.replace("*", "")))) {
+                    hits.add(term);
+                }
+            }
+        }
+        int start = page * size;
+        List<Map<String, Object>> docs = new ArrayList<>();
+        for (Term term : hits.subList(Math.min(hits.size(), start), Math.min(hits.size(), start + size))) {
+            Map<String, Object> doc = OlsJsonUtil.toOlsMap(term, null);
+            doc.put(OlsJsonUtil.ONTOLOGY_PREFIX, term.getOntologyName().toUpperCase());
+            docs.add(doc);
+        }
+        int numFound = hits.size();
+        // the first page always asks the OLS, its count is the one of the whole query
+        if (remote.length() > 0 && (page == 0 || docs.size() < size)) {
+            numFound += addRemoteHits(docs, Math.max(0, start - hits.size()), size, name, remote.toString(),
+                    exact, field, obsoletes);
+        }
+        return OlsJsonUtil.toSearchQuery(numFound, start, docs);
+    }
+
+    /**
+     * Add the OLS hits from a position until the page is full, they can
+     * span two pages of the OLS.
+     *
+     * @return int the number of hits in the OLS
+     */
+    private int addRemoteHits(List<Map<String, Object>> docs, int from, int size, String name, String ontology,
+                              boolean exact, String field, boolean obsoletes) {
+        int numFound = 0;
+        int remotePage = from / size;
+        int offset = from % size;
+        while (docs.size() < size || numFound == 0) {
+            SearchQuery results = super.getSearchQuery(remotePage, name, ontology, exact, field, obsoletes, size);
+            if (results == null || results.getResponse() == null) {
+                break;
+            }
+            numFound = results.getResponse().getNumFound();
+            SearchResult[] page = results.getResponse().getSearchResults();
+            if (page != null) {
+                for (int i = offset; i < page.length && docs.size() < size; i++) {
+                    docs.add(toOlsMap(page[i]));
+                }
+            }
+            remotePage++;
+            offset = 0;
+            if (page == null || page.length == 0 || remotePage * size >= numFound) {
+                break;
+            }
+        }
+        return numFound;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toOlsMap(SearchResult result) {
+        return OlsJsonUtil.getMapper().convertValue(result, Map.class);
+    }
+
+    /**
+     * A local OBO file, parsed once on first use. The file is parsed on a
+     * thread of its own, the callers only wait for it, so an interrupted
+     * caller never leaves the parse failed. A failed parse is started again
+     * by the next caller.
+     */
+    private class OboFile {
+
+        private final File file;
+
+        private final String id;
+
+        private final String title;
+
+        private final AtomicReference<FutureTask<OfflineTermStore>> store = new AtomicReference<>();
+
+        private volatile Ontology ontology;
+
+        private OboFile(final File file, final String id, final String title) {
+            this.file = file;
+            this.id = id;
+            this.title = title;
+        }
+
+        private Ontology getOntology() {
+            if (ontology == null) {
+                ontology = OlsJsonUtil.toOntology(id, id.toUpperCase(), title);
+            }
+            return ontology;
+        }
+
+        /**
+         * The first caller starts the parse, all of them wait for it.
+         */
+        private OfflineTermStore getStore() {
+            FutureTask<OfflineTermStore> current = store.get();
+            if (current == null || isFailed(current)) {
+                FutureTask<OfflineTermStore> parse = new FutureTask<>(new Callable<OfflineTermStore>() {
+                    @Override
+                    public OfflineTermStore call() throws Exception {
+                        return new OfflineTermStore(id, title, parser.parse(file));
+                    }
+                });
+                if (store.compareAndSet(current, parse)) {
+                    Thread thread = new Thread(parse, "ols-obo-" + id);
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+                current = store.get();
+            }
+            try {
+                return current.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                CancellationException cancelled = new CancellationException("Interrupted while waiting for " + file);
+                cancelled.initCause(e);
+                throw cancelled;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to read the OBO file " + file, e.getCause());
+            }
+        }
+
+        private boolean isFailed(FutureTask<OfflineTermStore> parse) {
+            if (!parse.isDone()) {
+                return false;
+            }
+            try {
+                parse.get();
+                return false;
+            } catch (ExecutionException | CancellationException e) {
+                return true;
+            } catch (InterruptedException e) {
+                // never thrown by a completed task
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
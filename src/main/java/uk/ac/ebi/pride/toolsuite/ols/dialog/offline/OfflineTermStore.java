@@ -0,0 +1,337 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.offline;
+
+import net.jcip.annotations.ThreadSafe;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.search.LocalTermIndex;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.search.MassIndex;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.util.OlsJsonUtil;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Ontology;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * In memory store of the terms of one ontology read from an OBO file. The
+ * terms are indexed by id, label and synonyms (a {@link LocalTermIndex}),
+ * xrefs, hierarchy and mass annotations, so the store answers the term
+ * search, the ID search, the browser and the PSI-MOD mass search without any
+ * network access. The terms are built with the OLS JSON mapping, they are
+ * the same objects the OLSClient returns.
+ * <p>
+ */
+@ThreadSafe
+public class OfflineTermStore {
+
+    private static final String OBO_IRI_PREFIX = "http://purl.obolibrary.org/obo/";
+
+    private final String ontologyId;
+
+    private final Ontology ontology;
+
+    private final Map<String, Term> terms;
+
+    private final Map<String, OboTerm> oboTerms;
+
+    private final Map<String, List<String>> children;
+
+    private final List<Term> roots;
+
+    private final List<Term> allTerms;
+
+    private final LocalTermIndex index;
+
+    /**
+     * Mass indexes, built the first time a mass type is queried.
+     */
+    private final Map<String, MassIndex> massIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * Build the store.
+     *
+     * @param ontologyId ontology id, e.g. "ms"
+     * @param title      ontology title
+     * @param parsed     terms read from the OBO file
+     */
+    public OfflineTermStore(String ontologyId, String title, List<OboTerm> parsed) {
+        this.ontologyId = ontologyId.toLowerCase();
+        this.ontology = OlsJsonUtil.toOntology(this.ontologyId, ontologyId.toUpperCase(), title);
+
+        Map<String, OboTerm> byId = new HashMap<>(parsed.size() * 2);
+        for (OboTerm oboTerm : parsed) {
+            byId.put(key(oboTerm.getId()), oboTerm);
+        }
+
+        Map<String, List<String>> childIds = new HashMap<>();
+        for (OboTerm oboTerm : parsed) {
+            if (oboTerm.isObsolete()) {
+                continue;
+            }
+            for (String parent : oboTerm.getParents()) {
+                if (byId.containsKey(key(parent))) {
+                    List<String> siblings = childIds.get(key(parent));
+                    if (siblings == null) {
+                        siblings = new ArrayList<>();
+                        childIds.put(key(parent), siblings);
+                    }
+                    siblings.add(key(oboTerm.getId()));
+                }
+            }
+        }
+
+        Map<String, Term> termsById = new HashMap<>(parsed.size() * 2);
+        List<Term> rootTerms = new ArrayList<>();
+        List<Term> activeTerms = new ArrayList<>(parsed.size());
+        List<List<String>> synonyms = new ArrayList<>(parsed.size());
+        for (OboTerm oboTerm : parsed) {
+            boolean root = !oboTerm.isObsolete() && !hasKnownParent(oboTerm, byId);
+            Term term = OlsJsonUtil.toTerm(toOlsMap(oboTerm, childIds.containsKey(key(oboTerm.getId())), root));
+            termsById.put(key(oboTerm.getId()), term);
+            if (!oboTerm.isObsolete()) {
+                activeTerms.add(term);
+                synonyms.add(new ArrayList<>(oboTerm.getSynonyms().keySet()));
+                if (root) {
+                    rootTerms.add(term);
+                }
+            }
+        }
+
+        this.oboTerms = byId;
+        this.terms = termsById;
+        this.children = childIds;
+        this.roots = Collections.unmodifiableList(rootTerms);
+        this.allTerms = Collections.unmodifiableList(activeTerms);
+        this.index = new LocalTermIndex(this.ontologyId, activeTerms, synonyms);
+    }
+
+    public String getOntologyId() {
+        return ontologyId;
+    }
+
+    public Ontology getOntology() {
+        return ontology;
+    }
+
+    public int size() {
+        return allTerms.size();
+    }
+
+    /**
+     * Label and synonym index of the terms that are not obsolete.
+     *
+     * @return LocalTermIndex the index
+     */
+    public LocalTermIndex getIndex() {
+        return index;
+    }
+
+    public List<Term> getAllTerms() {
+        return allTerms;
+    }
+
+    public List<Term> getRootTerms() {
+        return roots;
+    }
+
+    /**
+     * Find a term by OBO id (MS:1000001), short form (MS_1000001) or IRI.
+     *
+     * @param termId term identifier
+     * @return Term the term, null if it is not in the store
+     */
+    public Term getTerm(Identifier termId) {
+        return (termId == null || termId.getIdentifier() == null) ? null : terms.get(key(termId.getIdentifier()));
+    }
+
+    /**
+     * Descendants of a term down to a distance, as the OLS returns them.
+     *
+     * @param termId   term identifier
+     * @param distance number of levels, 1 for the direct children
+     * @return List<Term> the descendants, empty if the term is unknown
+     */
+    public List<Term> getChildren(Identifier termId, int distance) {
+        List<Term> result = new ArrayList<>();
+        OboTerm oboTerm = getOboTerm(termId);
+        if (oboTerm == null) {
+            return result;
+        }
+        Set<String> seen = new HashSet<>();
+        Deque<String> level = new ArrayDeque<>();
+        level.add(key(oboTerm.getId()));
+        for (int depth = 0; depth < Math.max(1, distance) && !level.isEmpty(); depth++) {
+            Deque<String> next = new ArrayDeque<>();
+            for (String id : level) {
+                List<String> childIds = children.get(id);
+                if (childIds != null) {
+                    for (String childId : childIds) {
+                        if (seen.add(childId)) {
+                            result.add(terms.get(childId));
+                            next.add(childId);
+                        }
+                    }
+                }
+            }
+            level = next;
+        }
+        return result;
+    }
+
+    /**
+     * Ancestors of a term up to a distance, as the OLS returns them.
+     *
+     * @param termId   term identifier
+     * @param distance number of levels, 1 for the direct parents
+     * @return List<Term> the ancestors, empty if the term is unknown
+     */
+    public List<Term> getParents(Identifier termId, int distance) {
+        List<Term> result = new ArrayList<>();
+        OboTerm oboTerm = getOboTerm(termId);
+        if (oboTerm == null) {
+            return result;
+        }
+        Set<String> seen = new HashSet<>();
+        List<OboTerm> level = Collections.singletonList(oboTerm);
+        for (int depth = 0; depth < Math.max(1, distance) && !level.isEmpty(); depth++) {
+            List<OboTerm> next = new ArrayList<>();
+            for (OboTerm current : level) {
+                for (String parent : current.getParents()) {
+                    OboTerm parentTerm = oboTerms.get(key(parent));
+                    if (parentTerm != null && seen.add(key(parent))) {
+                        result.add(terms.get(key(parent)));
+                        next.add(parentTerm);
+                    }
+                }
+            }
+            level = next;
+        }
+        return result;
+    }
+
+    public List<String> getDescription(Identifier termId) {
+        OboTerm oboTerm = getOboTerm(termId);
+        if (oboTerm == null || oboTerm.getDefinition() == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(oboTerm.getDefinition());
+    }
+
+    public Map<String, String> getXrefs(Identifier termId) {
+        OboTerm oboTerm = getOboTerm(termId);
+        return (oboTerm == null) ? Collections.<String, String>emptyMap() : Collections.unmodifiableMap(oboTerm.getXrefs());
+    }
+
+    public Map<String, String> getSynonyms(Identifier termId) {
+        OboTerm oboTerm = getOboTerm(termId);
+        return (oboTerm == null) ? Collections.<String, String>emptyMap() : Collections.unmodifiableMap(oboTerm.getSynonyms());
+    }
+
+    public Map<String, List<String>> getAnnotations(Identifier termId) {
+        OboTerm oboTerm = getOboTerm(termId);
+        return (oboTerm == null) ? Collections.<String, List<String>>emptyMap() : Collections.unmodifiableMap(oboTerm.getAnnotations());
+    }
+
+    /**
+     * Terms with a numeric annotation (e.g. the DiffMono xref of PSI-MOD) in
+     * a range of values.
+     *
+     * @param annotationType annotation, e.g. DiffMono
+     * @param from           lowest value
+     * @param to             highest value
+     * @return List<Term> the terms, sorted by value
+     */
+    public List<Term> getTermsByAnnotation(String annotationType, double from, double to) {
+        MassIndex massIndex = massIndexes.get(annotationType);
+        if (massIndex == null) {
+            massIndex = new MassIndex(annotationType, allTerms);
+            massIndexes.put(annotationType, massIndex);
+        }
+        List<Term> result = new ArrayList<>();
+        for (MassIndex.MassHit hit : massIndex.query(from, to)) {
+            result.add(hit.getTerm());
+        }
+        return result;
+    }
+
+    private OboTerm getOboTerm(Identifier termId) {
+        return (termId == null || termId.getIdentifier() == null) ? null : oboTerms.get(key(termId.getIdentifier()));
+    }
+
+    private static boolean hasKnownParent(OboTerm oboTerm, Map<String, OboTerm> byId) {
+        for (String parent : oboTerm.getParents()) {
+            if (byId.containsKey(key(parent))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Normalize a term identifier to the lower case OBO id, e.g.
+     * http://purl.obolibrary.org/obo/MS_1000001 to ms:1000001.
+     */
+    static String key(String identifier) {
+        String id = identifier.trim();
+        int slash = id.lastIndexOf('/');
+        if (slash >= 0) {
+            id = id.substring(slash + 1);
+        }
+        int underscore = id.indexOf('_');
+        if (id.indexOf(':') < 0 && underscore > 0) {
+            id = id.substring(0, underscore) + ":" + id.substring(underscore + 1);
+        }
+        return id.toLowerCase();
+    }
+
+    private Map<String, Object> toOlsMap(OboTerm oboTerm, boolean hasChildren, boolean root) {
+        String shortForm = oboTerm.getId().replaceFirst(":", "_");
+        Map<String, Object> olsTerm = new LinkedHashMap<>();
+        olsTerm.put(OlsJsonUtil.IRI, OBO_IRI_PREFIX + shortForm);
+        olsTerm.put(OlsJsonUtil.LABEL, oboTerm.getName());
+        olsTerm.put(OlsJsonUtil.OBO_ID, oboTerm.getId());
+        olsTerm.put(OlsJsonUtil.SHORT_FORM, shortForm);
+        olsTerm.put(OlsJsonUtil.ONTOLOGY_NAME, ontologyId);
+        olsTerm.put(OlsJsonUtil.ONTOLOGY_PREFIX, ontologyId.toUpperCase());
+        olsTerm.put(OlsJsonUtil.HAS_CHILDREN, hasChildren);
+        olsTerm.put(OlsJsonUtil.IS_ROOT, root);
+        olsTerm.put(OlsJsonUtil.IS_OBSOLETE, oboTerm.isObsolete());
+        if (oboTerm.getDefinition() != null) {
+            olsTerm.put(OlsJsonUtil.DESCRIPTION, Collections.singletonList(oboTerm.getDefinition()));
+        }
+        if (!oboTerm.getSynonyms().isEmpty()) {
+            olsTerm.put(OlsJsonUtil.SYNONYMS, new ArrayList<>(oboTerm.getSynonyms().keySet()));
+        }
+        if (!oboTerm.getXrefs().isEmpty()) {
+            List<Map<String, Object>> xrefs = new ArrayList<>(oboTerm.getXrefs().size());
+            for (Map.Entry<String, String> xref : oboTerm.getXrefs().entrySet()) {
+                Map<String, Object> olsXref = new LinkedHashMap<>();
+                olsXref.put(OlsJsonUtil.XREF_DATABASE, xref.getKey());
+                olsXref.put(OlsJsonUtil.XREF_ID, xref.getValue());
+                olsXref.put(OlsJsonUtil.DESCRIPTION, xref.getValue());
+                xrefs.add(olsXref);
+            }
+            olsTerm.put(OlsJsonUtil.OBO_XREF, xrefs);
+        }
+        if (!oboTerm.getAnnotations().isEmpty()) {
+            olsTerm.put(OlsJsonUtil.ANNOTATION, oboTerm.getAnnotations());
+        }
+        return olsTerm;
+    }
+}
@@ -1,42 +1,92 @@
 package uk.ac.ebi.pride.toolsuite.ols.dialog.renders;
 
-import uk.ac.ebi.pride.toolsuite.ols.dialog.util.Util;
 import uk.ac.ebi.pride.utilities.ols.web.service.model.ITerm;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.TableCellRenderer;
 import java.awt.*;
+import java.awt.font.TextAttribute;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
+ * Renderer of the search result tables. A single label is reused for all the
+ * cells of a table and nothing is allocated for a repaint: the accession is
+ * painted as plain text with an underlined link font instead of an HTML
+ * link, so the label never parses or lays out HTML, and the derived font and
+ * background colours are kept between paints.
+ *
  * @author Yasset Perez-Riverol (ypriverol@gmail.com)
  * @date 06/03/2016
  */
-public class SearchTableCellRender implements TableCellRenderer {
+public class SearchTableCellRender extends DefaultTableCellRenderer {
 
     public static final DefaultTableCellRenderer DEFAULT_RENDERER =
             new DefaultTableCellRenderer();
 
+    /**
+     * Colour of the accession links, the same one used by Util.getOlsAccessionLink.
+     */
+    public static final Color LINK_COLOR = new Color(0x01, 0x01, 0xDF);
+
+    /**
+     * Backgrounds copied as plain colours, see getTableCellRendererComponent.
+     */
+    private final Map<Color, Color> backgrounds = new HashMap<>();
+
+    private Font baseFont;
+
+    private Font linkFont;
+
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
 
-        JLabel label = (JLabel)(new DefaultTableCellRenderer()).getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+        // DefaultTableCellRenderer keeps the colours set on it as the colours
+        // of the unselected cells, the ones set below for the previous cell
+        // are dropped so every cell starts from the table colours
+        setForeground(null);
+        setBackground(null);
+        super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
 
-        Color bg = label.getBackground();
+        // a plain colour instead of the UI resource one, so the look and feel
+        // paints the background of the cell
+        setBackground(getPlainColor(getBackground()));
 
-        label.setBackground(new Color(bg.getRed(), bg.getGreen(), bg.getBlue()));
+        if (column == 0 && value instanceof ITerm) {
+            ITerm term = (ITerm) value;
+            setText(term.getGlobalId() != null ? term.getGlobalId().getIdentifier() : null);
+            setFont(getLinkFont(getFont()));
+            if (!isSelected) {
+                setForeground(LINK_COLOR);
+            }
+        } else if (column == 1 && value instanceof ITerm) {
+            ITerm term = (ITerm) value;
+            String description = (term.getName() != null) ? term.getName() : term.getGlobalId().getIdentifier();
+            setText(description);
+        }
+        return this;
+    }
 
-        if(column == 0 && value instanceof ITerm){
-            label.setText(Util.getOlsAccessionLink((ITerm) value));
+    private Color getPlainColor(Color color) {
+        if (color == null) {
+            return null;
+        }
+        Color plain = backgrounds.get(color);
+        if (plain == null) {
+            plain = new Color(color.getRed(), color.getGreen(), color.getBlue());
+            backgrounds.put(color, plain);
+        }
+        return plain;
+    }
 
-        }else if(column == 1 && value instanceof ITerm){
-            ITerm term = (ITerm) value;
-            String description = (term != null && term.getName() != null)? term.getName(): term.getGlobalId().getIdentifier();
-            label.setText(description);
-        }else if(value instanceof String){
-            String term = (String) value;
-            label.setText(term);
+    @SuppressWarnings("unchecked")
+    private Font getLinkFont(Font font) {
+        if (font != baseFont || linkFont == null) {
+            Map<TextAttribute, Object> attributes = (Map<TextAttribute, Object>) font.getAttributes();
+            attributes.put(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON);
+            baseFont = font;
+            linkFont = font.deriveFont(attributes);
         }
-        return label;
+        return linkFont;
     }
 }
@@ -0,0 +1,285 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.search;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.cache.OntologyRegistry;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.util.OlsJsonUtil;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Keeps the {@link LocalTermIndex} of the preselected ontologies, one manager
+ * per backend shared by all the dialogs using it. An index is built from a
+ * local snapshot if there is a recent one, otherwise all the terms of the
+ * ontology are downloaded from the OLS and the snapshot is written. Only the
+ * manager of the persistent backend (the default OLS backend of the dialogs)
+ * reads and writes snapshots.
+ * <p>
+ * The local index is optional, it is enabled with the system property
+ * {@value #ENABLED_PROP}=true. Ontologies with more than {@value #MAX_TERMS_PROP}
+ * terms in the registry (default {@value #DEFAULT_MAX_TERMS}) are not indexed:
+ * the whole ontology would be downloaded and kept in memory for a type-ahead
+ * search, they are searched in the OLS. The snapshot directory and the maximum
+ * age of a snapshot can be changed with {@value #DIR_PROP} and
+ * {@value #MAX_AGE_DAYS_PROP}, a snapshot older than that is downloaded again.
+ */
+@ThreadSafe
+public class LocalIndexManager {
+
+    public static org.slf4j.Logger logger = LoggerFactory.getLogger(LocalIndexManager.class);
+
+    public static final String ENABLED_PROP = "ols-dialog.index.enabled";
+
+    public static final String DIR_PROP = "ols-dialog.index.dir";
+
+    public static final String MAX_AGE_DAYS_PROP = "ols-dialog.index.maxAgeDays";
+
+    public static final long DEFAULT_MAX_AGE_DAYS = 7;
+
+    public static final String MAX_TERMS_PROP = "ols-dialog.index.maxTerms";
+
+    public static final int DEFAULT_MAX_TERMS = 50000;
+
+    private static final String DEFAULT_DIR = ".ols-dialog" + File.separator + "index";
+
+    /**
+     * Managers by backend, compared by identity.
+     */
+    private static final Map<OntologyBackend, LocalIndexManager> MANAGERS = new WeakHashMap<>();
+
+    private static volatile OntologyBackend persistentBackend;
+
+    private final File directory;
+
+    private final long maxAgeMillis;
+
+    private final int maxTerms;
+
+    private final ConcurrentHashMap<String, LocalTermIndex> indexes = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Boolean> claimed = new ConcurrentHashMap<>();
+
+    public LocalIndexManager(File directory, long maxAge, TimeUnit unit) {
+        this(directory, maxAge, unit, DEFAULT_MAX_TERMS);
+    }
+
+    public LocalIndexManager(File directory, long maxAge, TimeUnit unit, int maxTerms) {
+        this.directory = directory;
+        this.maxAgeMillis = unit.toMillis(maxAge);
+        this.maxTerms = maxTerms;
+    }
+
+    /**
+     * Manager of a backend, shared by all the dialogs using it.
+     *
+     * @param backend the backend
+     * @return LocalIndexManager the manager of the backend
+     */
+    public static LocalIndexManager getInstance(OntologyBackend backend) {
+        synchronized (MANAGERS) {
+            LocalIndexManager manager = MANAGERS.get(backend);
+            if (manager == null) {
+                manager = new LocalIndexManager((backend == persistentBackend) ? defaultDirectory() : null,
+                        Long.getLong(MAX_AGE_DAYS_PROP, DEFAULT_MAX_AGE_DAYS), TimeUnit.DAYS,
+                        Integer.getInteger(MAX_TERMS_PROP, DEFAULT_MAX_TERMS));
+                MANAGERS.put(backend, manager);
+            }
+            return manager;
+        }
+    }
+
+    /**
+     * Set the backend whose indexes are persisted as snapshots. It must be
+     * set before the manager of the backend is used.
+     *
+     * @param backend the default backend of the dialogs
+     */
+    public static void setPersistentBackend(OntologyBackend backend) {
+        persistentBackend = backend;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(ENABLED_PROP, "false"));
+    }
+
+    /**
+     * Return the index of an ontology.
+     *
+     * @param ontology ontology id or prefix
+     * @return LocalTermIndex the index, null if it has not been built
+     */
+    public LocalTermIndex getIndex(String ontology) {
+        return (ontology == null) ? null : indexes.get(ontology.toLowerCase());
+    }
+
+    /**
+     * Return the indexes of all the ontologies, or null if one of them has
+     * not been built.
+     *
+     * @param ontologies ontology ids or prefixes
+     * @return List<LocalTermIndex> the indexes
+     */
+    public List<LocalTermIndex> getIndexes(Collection<String> ontologies) {
+        List<LocalTermIndex> result = new ArrayList<>();
+        for (String ontology : ontologies) {
+            LocalTermIndex index = getIndex(ontology);
+            if (index == null) {
+                return null;
+            }
+            result.add(index);
+        }
+        return result;
+    }
+
+    /**
+     * Return true if the caller should build the index of the ontology, only
+     * the first caller gets true.
+     *
+     * @param ontology ontology id or prefix
+     * @return boolean true if the index has to be built
+     */
+    public boolean claimBuild(String ontology) {
+        return ontology != null && claimed.putIfAbsent(ontology.toLowerCase(), Boolean.TRUE) == null;
+    }
+
+    /**
+     * Release a claim after a failed build, so the index can be built again.
+     *
+     * @param ontology ontology id or prefix
+     */
+    public void releaseBuild(String ontology) {
+        if (ontology != null) {
+            claimed.remove(ontology.toLowerCase());
+        }
+    }
+
+    /**
+     * Build the index of an ontology from its snapshot or from the OLS. An
+     * ontology over the maximum number of terms is not indexed, its claim is
+     * kept so it is not checked again.
+     *
+     * @param ontology  ontology id or prefix
+     * @param olsClient OLS client used if there is no recent snapshot
+     * @return LocalTermIndex the index, null if the ontology is too large
+     */
+    public LocalTermIndex build(String ontology, OntologyBackend olsClient) {
+        String key = ontology.toLowerCase();
+        long start = System.nanoTime();
+        LocalTermIndex index = readSnapshot(key);
+        if (index == null) {
+            // check the size announced by the registry before downloading anything
+            OntologyRegistry registry = OntologyRegistry.getInstance(olsClient);
+            registry.getOntologies(olsClient);
+            long numberOfTerms = OlsJsonUtil.getNumberOfTerms(registry.findOntology(key));
+            if (numberOfTerms > maxTerms) {
+                logger.info("Not indexing " + key + ", it has " + numberOfTerms + " terms (maximum " + maxTerms + ")");
+                return null;
+            }
+            List<Term> terms = olsClient.getAllTermsFromOntology(key);
+            if (terms == null) {
+                terms = new ArrayList<>();
+            }
+            if (terms.size() > maxTerms) {
+                // the registry did not know the size of the ontology
+                logger.info("Not indexing " + key + ", it has " + terms.size() + " terms (maximum " + maxTerms + ")");
+                return null;
+            }
+            List<List<String>> synonyms = new ArrayList<>(terms.size());
+            for (Term term : terms) {
+                synonyms.add(OlsJsonUtil.getSynonyms(term));
+            }
+            index = new LocalTermIndex(key, terms, synonyms);
+            writeSnapshot(key, terms, synonyms);
+        }
+        indexes.put(key, index);
+        logger.info("Local index of " + key + " ready with " + index.size() + " terms in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        return index;
+    }
+
+    private File snapshotFile(String ontology) {
+        return new File(directory, ontology.replaceAll("[^a-z0-9_.-]", "_") + ".json");
+    }
+
+    private LocalTermIndex readSnapshot(String ontology) {
+        if (directory == null) {
+            return null;
+        }
+        File file = snapshotFile(ontology);
+        if (!file.isFile() || System.currentTimeMillis() - file.lastModified() > maxAgeMillis) {
+            return null;
+        }
+        try {
+            List<Map<String, Object>> olsTerms = OlsJsonUtil.getMapper().readValue(file,
+                    new TypeReference<List<Map<String, Object>>>() {});
+            List<Term> terms = new ArrayList<>(olsTerms.size());
+            List<List<String>> synonyms = new ArrayList<>(olsTerms.size());
+            for (Map<String, Object> olsTerm : olsTerms) {
+                terms.add(OlsJsonUtil.toTerm(olsTerm));
+                List<String> termSynonyms = new ArrayList<>();
+                Object values = olsTerm.get(OlsJsonUtil.SYNONYMS);
+                if (values instanceof Collection) {
+                    for (Object value : (Collection<?>) values) {
+                        termSynonyms.add(String.valueOf(value));
+                    }
+                }
+                synonyms.add(termSynonyms);
+            }
+            return terms.isEmpty() ? null : new LocalTermIndex(ontology, terms, synonyms);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Failed to read the local index snapshot " + file, e);
+            return null;
+        }
+    }
+
+    private void writeSnapshot(String ontology, List<Term> terms, List<List<String>> synonyms) {
+        if (directory == null || terms.isEmpty()) {
+            return;
+        }
+        File file = snapshotFile(ontology);
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                logger.warn("Failed to create the directory " + directory);
+                return;
+            }
+            List<Map<String, Object>> olsTerms = new ArrayList<>(terms.size());
+            for (int i = 0; i < terms.size(); i++) {
+                olsTerms.add(OlsJsonUtil.toOlsMap(terms.get(i), synonyms.get(i)));
+            }
+            File tmp = new File(file.getPath() + ".tmp");
+            OlsJsonUtil.getMapper().writeValue(tmp, olsTerms);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Failed to write the local index snapshot " + file, e);
+        }
+    }
+
+    private static File defaultDirectory() {
+        String path = System.getProperty(DIR_PROP);
+        if (path != null && !path.trim().isEmpty()) {
+            return new File(path.trim());
+        }
+        return new File(System.getProperty("user.home"), DEFAULT_DIR);
+    }
+}
@@ -0,0 +1,232 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.search;
+
+import net.jcip.annotations.Immutable;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * In memory substring index of the labels and synonyms of the terms of one
+ * ontology. Every lower case trigram of a label or synonym points to the
+ * sorted list of the terms containing it; a query is answered by
+ * intersecting the lists of its trigrams and checking the few candidates
+ * left. Queries shorter than three characters scan all the terms.
+ * <p>
+ * Results are ranked: exact label matches first, then labels starting with
+ * the query, labels containing it and finally synonyms containing it.
+ */
+@Immutable
+public class LocalTermIndex {
+
+    private static final int GRAM = 3;
+
+    private final String ontology;
+
+    private final Term[] terms;
+
+    /**
+     * Lower case label (first) and synonyms of every term.
+     */
+    private final String[][] keys;
+
+    private final Map<Long, int[]> postings;
+
+    /**
+     * Build the index.
+     *
+     * @param ontology ontology id
+     * @param terms    terms of the ontology
+     * @param synonyms synonyms of every term, in the same order, can be null
+     */
+    public LocalTermIndex(String ontology, List<Term> terms, List<List<String>> synonyms) {
+        this.ontology = ontology;
+        this.terms = terms.toArray(new Term[terms.size()]);
+        this.keys = new String[this.terms.length][];
+
+        Map<Long, IntList> grams = new HashMap<>();
+        for (int i = 0; i < this.terms.length; i++) {
+            List<String> termSynonyms = (synonyms == null) ? Collections.<String>emptyList() : synonyms.get(i);
+            String[] termKeys = new String[1 + termSynonyms.size()];
+            termKeys[0] = normalize(this.terms[i].getName());
+            for (int j = 0; j < termSynonyms.size(); j++) {
+                termKeys[j + 1] = normalize(termSynonyms.get(j));
+            }
+            keys[i] = termKeys;
+            for (String key : termKeys) {
+                for (int start = 0; start + GRAM <= key.length(); start++) {
+                    long gram = gram(key, start);
+                    IntList list = grams.get(gram);
+                    if (list == null) {
+                        list = new IntList();
+                        grams.put(gram, list);
+                    }
+                    list.addIfLast(i);
+                }
+            }
+        }
+        this.postings = new HashMap<>(grams.size() * 4 / 3 + 1);
+        for (Map.Entry<Long, IntList> entry : grams.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    public String getOntology() {
+        return ontology;
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * Return the terms whose label or synonyms contain the query. Leading and
+     * trailing wildcards (*) are ignored, the match is case insensitive.
+     *
+     * @param query substring to look for
+     * @param limit maximum number of terms returned
+     * @return List<Term> matching terms, best matches first
+     */
+    public List<Term> search(String query, int limit) {
+        String q = normalize(query.replace("*", ""));
+        if (q.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        boolean scan = q.length() < GRAM;
+        int[] candidates = scan ? null : candidates(q);
+        if (!scan && candidates == null) {
+            return new ArrayList<>();
+        }
+
+        List<List<Term>> ranks = new ArrayList<>();
+        for (int rank = 0; rank < 4; rank++) {
+            ranks.add(new ArrayList<Term>());
+        }
+        int found = 0;
+        int count = scan ? terms.length : candidates.length;
+        for (int c = 0; c < count && ranks.get(0).size() < limit; c++) {
+            int i = scan ? c : candidates[c];
+            int rank = rank(keys[i], q);
+            if (rank >= 0) {
+                ranks.get(rank).add(terms[i]);
+                found++;
+            }
+        }
+        List<Term> results = new ArrayList<>(Math.min(found, limit));
+        for (List<Term> rank : ranks) {
+            for (Term term : rank) {
+                if (results.size() == limit) {
+                    return results;
+                }
+                results.add(term);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Terms sharing all the trigrams of the query, null if no term can match.
+     */
+    private int[] candidates(String q) {
+        int[][] lists = new int[q.length() - GRAM + 1][];
+        for (int start = 0; start + GRAM <= q.length(); start++) {
+            int[] list = postings.get(gram(q, start));
+            if (list == null) {
+                return null;
+            }
+            lists[start] = list;
+        }
+        Arrays.sort(lists, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                return Integer.compare(a.length, b.length);
+            }
+        });
+        int[] result = lists[0];
+        for (int l = 1; l < lists.length && result.length > 0; l++) {
+            result = intersect(result, lists[l]);
+        }
+        return (result.length == 0) ? null : result;
+    }
+
+    private static int rank(String[] termKeys, String q) {
+        String label = termKeys[0];
+        if (label.equals(q)) {
+            return 0;
+        }
+        if (label.startsWith(q)) {
+            return 1;
+        }
+        if (label.contains(q)) {
+            return 2;
+        }
+        for (int j = 1; j < termKeys.length; j++) {
+            if (termKeys[j].contains(q)) {
+                return 3;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                result[n++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static long gram(String s, int start) {
+        return ((long) s.charAt(start) << 32) | ((long) s.charAt(start + 1) << 16) | s.charAt(start + 2);
+    }
+
+    private static String normalize(String s) {
+        return (s == null) ? "" : s.trim().toLowerCase();
+    }
+
+    /**
+     * Growable array of term positions, positions are added in increasing order.
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+
+        private int size = 0;
+
+        private void addIfLast(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.search;
+
+import net.jcip.annotations.Immutable;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Sorted index of the PSI-MOD terms by one mass annotation (DiffMono, DiffAvg,
+ * MassMono or MassAvg). The masses are kept in a primitive array sorted in
+ * ascending order, a range query is two binary searches.
+ * <p>
+ */
+@Immutable
+public class MassIndex {
+
+    private final String massType;
+
+    private final double[] masses;
+
+    private final Term[] terms;
+
+    private final long createdAt;
+
+    /**
+     * Build the index, terms without a numeric value for the mass type are
+     * left out.
+     *
+     * @param massType mass annotation, e.g. DiffMono
+     * @param terms    PSI-MOD terms
+     */
+    public MassIndex(String massType, List<Term> terms) {
+        this.massType = massType;
+        this.createdAt = System.currentTimeMillis();
+
+        final double[] values = new double[terms.size()];
+        Integer[] order = new Integer[terms.size()];
+        int n = 0;
+        for (int i = 0; i < terms.size(); i++) {
+            Double mass = parseMass(terms.get(i).getXRefValue(massType));
+            if (mass != null) {
+                values[i] = mass;
+                order[n++] = i;
+            }
+        }
+        order = Arrays.copyOf(order, n);
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(values[a], values[b]);
+            }
+        });
+        this.masses = new double[n];
+        this.terms = new Term[n];
+        for (int i = 0; i < n; i++) {
+            masses[i] = values[order[i]];
+            this.terms[i] = terms.get(order[i]);
+        }
+    }
+
+    public String getMassType() {
+        return massType;
+    }
+
+    public int size() {
+        return masses.length;
+    }
+
+    /**
+     * Creation time of the index.
+     *
+     * @return long time in milliseconds
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Return the terms with a mass between from and to (both included),
+     * closest to the middle of the range first.
+     *
+     * @param from lower mass
+     * @param to   upper mass
+     * @return List<MassHit> the matching terms
+     */
+    public List<MassHit> query(double from, double to) {
+        List<MassHit> hits = new ArrayList<>();
+        if (from > to) {
+            return hits;
+        }
+        for (int i = lowerBound(from); i < masses.length && masses[i] <= to; i++) {
+            hits.add(new MassHit(terms[i], masses[i]));
+        }
+        final double target = (from + to) / 2;
+        Collections.sort(hits, new Comparator<MassHit>() {
+            @Override
+            public int compare(MassHit a, MassHit b) {
+                return Double.compare(Math.abs(a.getMass() - target), Math.abs(b.getMass() - target));
+            }
+        });
+        return hits;
+    }
+
+    /**
+     * Return the terms within a tolerance of a mass.
+     *
+     * @param mass      searched mass
+     * @param tolerance tolerance
+     * @param unit      unit of the tolerance
+     * @return List<MassHit> the matching terms, closest first
+     */
+    public List<MassHit> query(double mass, double tolerance, MassTolerance unit) {
+        double delta = unit.toDalton(mass, tolerance);
+        return query(mass - delta, mass + delta);
+    }
+
+    /**
+     * First position with a mass greater or equal to the given one.
+     */
+    private int lowerBound(double mass) {
+        int low = 0;
+        int high = masses.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (masses[mid] < mass) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Double parseMass(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            double mass = Double.parseDouble(value.trim());
+            return (Double.isNaN(mass) || Double.isInfinite(mass)) ? null : mass;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A term and its mass for the indexed mass type.
+     */
+    public static final class MassHit {
+
+        private final Term term;
+
+        private final double mass;
+
+        private MassHit(Term term, double mass) {
+            this.term = term;
+            this.mass = mass;
+        }
+
+        public Term getTerm() {
+            return term;
+        }
+
+        public double getMass() {
+            return mass;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.search;
+
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskPriority;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskUtil;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Keeps one {@link MassIndex} per mass type, one manager per backend shared by
+ * all the dialogs using it. An
+ * index is loaded the first time its mass type is searched, with a single
+ * request for all the PSI-MOD terms having the annotation. Concurrent
+ * searches wait for the same load.
+ * <p>
+ * Once an index is older than its time to live it is still used, and a new
+ * one is loaded in the background to replace it. The time to live can be
+ * changed with the system property {@value #TTL_MINUTES_PROP}.
+ */
+@ThreadSafe
+public class MassIndexManager {
+
+    public static org.slf4j.Logger logger = LoggerFactory.getLogger(MassIndexManager.class);
+
+    public static final String TTL_MINUTES_PROP = "ols-dialog.massIndex.ttlMinutes";
+
+    public static final long DEFAULT_TTL_MINUTES = 12 * 60;
+
+    public static final String MOD_ONTOLOGY = "mod";
+
+    /**
+     * Range requested to load all the terms of a mass type.
+     */
+    private static final double MAX_MASS = 1000000d;
+
+    /**
+     * Managers by backend, compared by identity.
+     */
+    private static final Map<OntologyBackend, MassIndexManager> MANAGERS = new WeakHashMap<>();
+
+    private final long ttlMillis;
+
+    private final ConcurrentHashMap<String, FutureTask<MassIndex>> indexes = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, AtomicBoolean> refreshing = new ConcurrentHashMap<>();
+
+    public MassIndexManager(long ttl, TimeUnit unit) {
+        this.ttlMillis = unit.toMillis(ttl);
+    }
+
+    /**
+     * Manager of a backend, shared by all the dialogs using it.
+     *
+     * @param backend the backend
+     * @return MassIndexManager the manager of the backend
+     */
+    public static MassIndexManager getInstance(OntologyBackend backend) {
+        synchronized (MANAGERS) {
+            MassIndexManager manager = MANAGERS.get(backend);
+            if (manager == null) {
+                manager = new MassIndexManager(Long.getLong(TTL_MINUTES_PROP, DEFAULT_TTL_MINUTES), TimeUnit.MINUTES);
+                MANAGERS.put(backend, manager);
+            }
+            return manager;
+        }
+    }
+
+    /**
+     * Return the index of a mass type, loading it if needed.
+     *
+     * @param massType  mass annotation, e.g. DiffMono
+     * @param olsClient OLS client used to load the index
+     * @return MassIndex the index
+     * @throws InterruptedException if the thread is interrupted while waiting for the load
+     * @throws ExecutionException   if the index could not be loaded
+     */
+    public MassIndex getIndex(final String massType, final OntologyBackend olsClient) throws InterruptedException, ExecutionException {
+        FutureTask<MassIndex> load = indexes.get(massType);
+        if (load == null) {
+            FutureTask<MassIndex> newLoad = newLoad(massType, olsClient);
+            load = indexes.putIfAbsent(massType, newLoad);
+            if (load == null) {
+                load = newLoad;
+                load.run();
+            }
+        }
+        MassIndex index;
+        try {
+            index = load.get();
+        } catch (ExecutionException e) {
+            // let the next search try again
+            indexes.remove(massType, load);
+            throw e;
+        }
+        if (System.currentTimeMillis() - index.getCreatedAt() > ttlMillis) {
+            refresh(massType, olsClient);
+        }
+        return index;
+    }
+
+    /**
+     * Return the index of a mass type if it has been loaded.
+     *
+     * @param massType mass annotation
+     * @return MassIndex the index, null if it is not loaded yet
+     */
+    public MassIndex getLoadedIndex(String massType) {
+        FutureTask<MassIndex> load = indexes.get(massType);
+        if (load == null || !load.isDone()) {
+            return null;
+        }
+        try {
+            return load.get();
+        } catch (InterruptedException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Load a new index in the background and replace the current one.
+     *
+     * @param massType  mass annotation
+     * @param olsClient OLS client
+     */
+    public void refresh(final String massType, final OntologyBackend olsClient) {
+        AtomicBoolean flag = refreshing.get(massType);
+        if (flag == null) {
+            refreshing.putIfAbsent(massType, new AtomicBoolean(false));
+            flag = refreshing.get(massType);
+        }
+        if (!flag.compareAndSet(false, true)) {
+            return;
+        }
+        final AtomicBoolean running = flag;
+        // nobody waits for the refresh, it gives way to the other requests
+        TaskPriority previous = TaskUtil.setRequestPriority(TaskPriority.BACKGROUND);
+        try {
+            TaskUtil.getRequestExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        FutureTask<MassIndex> load = newLoad(massType, olsClient);
+                        load.run();
+                        load.get();
+                        indexes.put(massType, load);
+                    } catch (Exception e) {
+                        logger.warn("Failed to refresh the " + massType + " mass index: " + e.getMessage());
+                    } finally {
+                        running.set(false);
+                    }
+                }
+            });
+        } finally {
+            TaskUtil.setRequestPriority(previous);
+        }
+    }
+
+    private FutureTask<MassIndex> newLoad(final String massType, final OntologyBackend olsClient) {
+        return new FutureTask<>(new Callable<MassIndex>() {
+            @Override
+            public MassIndex call() throws Exception {
+                long start = System.nanoTime();
+                List<Term> terms = olsClient.getTermsByAnnotationData(MOD_ONTOLOGY, massType, -MAX_MASS, MAX_MASS);
+                MassIndex index = new MassIndex(massType, (terms == null) ? new ArrayList<Term>() : terms);
+                logger.info("Mass index " + massType + " loaded with " + index.size() + " terms in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+                return index;
+            }
+        });
+    }
+}
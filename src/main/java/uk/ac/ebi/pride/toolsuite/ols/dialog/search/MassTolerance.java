@@ -0,0 +1,37 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.search;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Unit of the tolerance of a mass search.
+ * <p>
+ */
+public enum MassTolerance {
+
+    /**
+     * Absolute tolerance in Dalton.
+     */
+    DA,
+
+    /**
+     * Relative tolerance in parts per million of the searched mass.
+     */
+    PPM;
+
+    /**
+     * Convert a tolerance to Dalton.
+     *
+     * @param mass      searched mass
+     * @param tolerance tolerance in this unit
+     * @return double tolerance in Dalton
+     */
+    public double toDalton(double mass, double tolerance) {
+        return (this == PPM) ? Math.abs(mass) * tolerance / 1000000d : tolerance;
+    }
+}
@@ -0,0 +1,369 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.search;
+
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.DeadlineExceededException;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.cache.OntologyRegistry;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.ExecutionMode;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskUtil;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Ontology;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.SearchQuery;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.SearchResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Runs a term search over several ontologies with a bounded number of
+ * concurrent OLS requests. The first page of every query is requested first;
+ * once it arrives the number of hits is known and the remaining pages of that
+ * query are queued. Results are handed to a {@link SearchListener} as the
+ * pages complete, in arrival order.
+ * <p>
+ * In {@link SearchMode#COMBINED} mode a single query is filtered on the
+ * whole ontology list (split in a few queries if the list is too long for
+ * one request). A query without answer has no hits. If the first page of a
+ * combined query fails, its ontologies are searched one by one instead, at
+ * most {@value #MAX_FALLBACK_ONTOLOGIES} of them and never after a
+ * deadline; the query on the whole OLS is never split. A failure that is not
+ * recovered is logged, and thrown by {@link #search} if nothing was found.
+ * <p>
+ * The thread calling {@link #search} coordinates the requests, it is the only
+ * one calling the listener. Interrupting it (e.g. cancelling the task running
+ * the search) stops the search: no new page is requested and the requests in
+ * flight are cancelled.
+ * <p>
+ * The default concurrency can be changed with the system property
+ * {@value #CONCURRENCY_PROP}. On virtual threads it defaults to the request
+ * limit of {@link TaskUtil#getVirtualMaxConcurrent()}. The number of requests
+ * and their throughput are logged at the end of every search.
+ */
+@ThreadSafe
+public class ParallelSearchEngine {
+
+    public static org.slf4j.Logger logger = LoggerFactory.getLogger(ParallelSearchEngine.class);
+
+    public static final String CONCURRENCY_PROP = "ols-dialog.search.concurrency";
+
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * Maximum length of the ontology filter of a combined query, longer
+     * lists are split to keep the request URL short.
+     */
+    public static final int MAX_FILTER_LENGTH = 1024;
+
+    /**
+     * Maximum number of ontologies searched one by one when their combined
+     * query fails.
+     */
+    public static final int MAX_FALLBACK_ONTOLOGIES = 16;
+
+    private final OntologyBackend olsClient;
+
+    private final ExecutorService executor;
+
+    private final int concurrency;
+
+    private final int pageSize;
+
+    /**
+     * Search engine on the shared request executor with the default (or system
+     * property) concurrency.
+     *
+     * @param olsClient OLS client
+     */
+    public ParallelSearchEngine(OntologyBackend olsClient) {
+        this(olsClient, TaskUtil.getRequestExecutor(),
+                Integer.getInteger(CONCURRENCY_PROP, (TaskUtil.getExecutionMode() == ExecutionMode.VIRTUAL)
+                        ? TaskUtil.getVirtualMaxConcurrent() : DEFAULT_CONCURRENCY), DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param olsClient   OLS client
+     * @param executor    executor running the requests
+     * @param concurrency maximum number of requests in flight
+     * @param pageSize    number of results per page
+     */
+    public ParallelSearchEngine(OntologyBackend olsClient, ExecutorService executor, int concurrency, int pageSize) {
+        if (olsClient == null || executor == null) {
+            throw new IllegalArgumentException("Null OLS client or executor");
+        }
+        if (concurrency <= 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Concurrency and page size must be positive");
+        }
+        this.olsClient = olsClient;
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.pageSize = pageSize;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Search a query in a set of ontologies, one query per ontology, and wait
+     * until all the pages have been retrieved.
+     *
+     * @param query      search query
+     * @param ontologies ontology ids or prefixes
+     * @param listener   listener receiving the results
+     * @return int number of results passed to the listener
+     * @throws InterruptedException if the search has been interrupted
+     */
+    public int search(String query, Collection<String> ontologies, SearchListener listener) throws InterruptedException {
+        return search(query, ontologies, SearchMode.PER_ONTOLOGY, listener);
+    }
+
+    /**
+     * Search a query in a set of ontologies and wait until all the pages
+     * have been retrieved.
+     *
+     * @param query      search query
+     * @param ontologies ontology ids or prefixes, null to search all the ontologies in the OLS
+     * @param mode       how the query is sent
+     * @param listener   listener receiving the results
+     * @return int number of results passed to the listener
+     * @throws InterruptedException if the search has been interrupted
+     */
+    public int search(String query, Collection<String> ontologies, SearchMode mode, SearchListener listener) throws InterruptedException {
+        Deque<PageRequest> pending = new ArrayDeque<>();
+        if (ontologies == null && mode == SearchMode.PER_ONTOLOGY) {
+            ontologies = allOntologies();
+        }
+        if (ontologies == null) {
+            pending.add(new PageRequest(null, null, 0));
+        } else if (mode == SearchMode.COMBINED && ontologies.size() > 1) {
+            pending.addAll(combinedRequests(ontologies));
+        } else {
+            pending.addAll(perOntologyRequests(ontologies));
+        }
+        return run(query, pending, listener);
+    }
+
+    private List<PageRequest> perOntologyRequests(Collection<String> ontologies) {
+        List<PageRequest> requests = new ArrayList<>();
+        for (String ontology : ontologies) {
+            if (ontology != null) {
+                requests.add(new PageRequest(ontology.toLowerCase(), null, 0));
+            }
+        }
+        return requests;
+    }
+
+    private List<PageRequest> combinedRequests(Collection<String> ontologies) {
+        List<PageRequest> requests = new ArrayList<>();
+        StringBuilder filter = new StringBuilder();
+        List<String> members = new ArrayList<>();
+        for (String ontology : ontologies) {
+            if (ontology == null) {
+                continue;
+            }
+            if (filter.length() > 0 && filter.length() + ontology.length() + 1 > MAX_FILTER_LENGTH) {
+                requests.add(new PageRequest(filter.toString(), members, 0));
+                filter = new StringBuilder();
+                members = new ArrayList<>();
+            }
+            if (filter.length() > 0) {
+                filter.append(',');
+            }
+            filter.append(ontology.toLowerCase());
+            members.add(ontology);
+        }
+        if (!members.isEmpty()) {
+            requests.add(new PageRequest(filter.toString(), members, 0));
+        }
+        return requests;
+    }
+
+    private List<String> allOntologies() {
+        List<String> ontologies = new ArrayList<>();
+        for (Ontology ontology : OntologyRegistry.getInstance(olsClient).getOntologies(olsClient)) {
+            if (ontology.getConfig() != null && ontology.getConfig().getPreferredPrefix() != null) {
+                ontologies.add(ontology.getConfig().getPreferredPrefix());
+            }
+        }
+        return ontologies;
+    }
+
+    /**
+     * A combined query failed, search its ontologies one by one if they are
+     * few. A slow or unreachable OLS would not answer them either.
+     */
+    private List<PageRequest> fallback(PageRequest request, RuntimeException error) {
+        if (request.members == null || request.page != 0 || request.members.size() > MAX_FALLBACK_ONTOLOGIES
+                || error instanceof DeadlineExceededException) {
+            return new ArrayList<>();
+        }
+        logger.info("Combined search on " + request.ontology + " failed, searching the ontologies one by one");
+        return perOntologyRequests(request.members);
+    }
+
+    /**
+     * Run the requests of the queue, keeping at most {@link #concurrency} of
+     * them in flight.
+     */
+    private int run(String query, Deque<PageRequest> pending, SearchListener listener) throws InterruptedException {
+        CompletionService<PageResult> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<PageResult>> futures = new ArrayList<>();
+        int inFlight = 0;
+        int numResults = 0;
+        int numFailures = 0;
+        RuntimeException failure = null;
+        long start = System.nanoTime();
+        try {
+            while (!pending.isEmpty() || inFlight > 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Search cancelled");
+                }
+                while (inFlight < concurrency && !pending.isEmpty()) {
+                    futures.add(completionService.submit(new PageCall(query, pending.poll())));
+                    inFlight++;
+                }
+                Future<PageResult> done = completionService.take();
+                inFlight--;
+                PageResult result;
+                try {
+                    result = done.get();
+                } catch (ExecutionException e) {
+                    logger.warn("Search request failed: " + e.getCause());
+                    continue;
+                }
+                if (result.error != null) {
+                    List<PageRequest> requests = fallback(result.request, result.error);
+                    if (requests.isEmpty()) {
+                        numFailures++;
+                        if (failure == null) {
+                            failure = result.error;
+                        }
+                    }
+                    pending.addAll(requests);
+                    continue;
+                }
+                if (result.request.page == 0) {
+                    int numberPages = (result.numFound + pageSize - 1) / pageSize;
+                    for (int page = 1; page < numberPages; page++) {
+                        pending.add(new PageRequest(result.request.ontology, result.request.members, page));
+                    }
+                }
+                if (result.results != null && result.results.length > 0) {
+                    numResults += result.results.length;
+                    listener.resultsFound(result.request.ontology, result.request.page, result.results);
+                }
+            }
+        } finally {
+            TaskUtil.cancelAll(futures);
+        }
+        long elapsed = Math.max(1, (System.nanoTime() - start) / 1000000);
+        logger.info("Search '" + query + "': " + futures.size() + " requests, " + numResults + " results in "
+                + elapsed + " ms (" + (futures.size() * 1000L / elapsed) + " requests/s, concurrency " + concurrency
+                + ", " + TaskUtil.getExecutionMode().name().toLowerCase() + " threads)");
+        if (failure != null) {
+            if (numResults == 0) {
+                throw failure;
+            }
+            logger.warn("Search '" + query + "': " + numFailures + " requests failed, the results are incomplete: " + failure);
+        }
+        return numResults;
+    }
+
+    private static final class PageRequest {
+
+        /**
+         * Ontology filter sent to the OLS, a comma separated list for a
+         * combined query, null for no filter.
+         */
+        private final String ontology;
+
+        /**
+         * Ontologies of a combined query, null for a single ontology or for a
+         * query on the whole OLS.
+         */
+        private final List<String> members;
+
+        private final int page;
+
+        private PageRequest(String ontology, List<String> members, int page) {
+            this.ontology = ontology;
+            this.members = members;
+            this.page = page;
+        }
+    }
+
+    private static final class PageResult {
+
+        private final PageRequest request;
+
+        private final int numFound;
+
+        private final SearchResult[] results;
+
+        /**
+         * Failure of the request, null if it was answered.
+         */
+        private final RuntimeException error;
+
+        private PageResult(PageRequest request, int numFound, SearchResult[] results, RuntimeException error) {
+            this.request = request;
+            this.numFound = numFound;
+            this.results = results;
+            this.error = error;
+        }
+    }
+
+    private class PageCall implements Callable<PageResult> {
+
+        private final String query;
+
+        private final PageRequest request;
+
+        private PageCall(String query, PageRequest request) {
+            this.query = query;
+            this.request = request;
+        }
+
+        @Override
+        public PageResult call() throws Exception {
+            SearchQuery resultSearch;
+            try {
+                resultSearch = olsClient.getSearchQuery(request.page, query, request.ontology, false, null, false, pageSize);
+            } catch (CancellationException e) {
+                // the search has been cancelled, no fallback
+                throw e;
+            } catch (RuntimeException e) {
+                logger.warn("Search request failed on " + request.ontology + ", page " + request.page + ": " + e);
+                return new PageResult(request, 0, null, e);
+            }
+            if (resultSearch == null || resultSearch.getResponse() == null) {
+                // no answer, no hits
+                return new PageResult(request, 0, null, null);
+            }
+            return new PageResult(request, resultSearch.getResponse().getNumFound(),
+                    resultSearch.getResponse().getSearchResults(), null);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.search;
+
+import uk.ac.ebi.pride.utilities.ols.web.service.model.SearchResult;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Receives the results of a {@link ParallelSearchEngine} search page by page.
+ * It is always called from the thread that runs the search, never from the
+ * request threads.
+ * <p>
+ */
+public interface SearchListener {
+
+    /**
+     * Called every time a page of results arrives.
+     *
+     * @param ontology ontology filter of the request, a comma separated list for a
+     *                 combined query, null if no filter was used
+     * @param page     page number
+     * @param results  results of the page, never empty
+     */
+    void resultsFound(String ontology, int page, SearchResult[] results);
+}
@@ -0,0 +1,48 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.search;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * How a search over several ontologies is sent to the OLS.
+ * <p>
+ * The default mode can be changed with the system property {@value #MODE_PROP}.
+ */
+public enum SearchMode {
+
+    /**
+     * One query filtered on all the ontologies (or not filtered at all when
+     * searching the whole OLS), paging through the combined hits.
+     */
+    COMBINED,
+
+    /**
+     * One query per ontology.
+     */
+    PER_ONTOLOGY;
+
+    public static final String MODE_PROP = "ols-dialog.search.mode";
+
+    /**
+     * Return the mode configured with the system property, COMBINED if it
+     * is not set or not valid.
+     *
+     * @return SearchMode default search mode
+     */
+    public static SearchMode getDefault() {
+        String mode = System.getProperty(MODE_PROP);
+        if (mode != null) {
+            for (SearchMode value : values()) {
+                if (value.name().equalsIgnoreCase(mode.trim())) {
+                    return value;
+                }
+            }
+        }
+        return COMBINED;
+    }
+}
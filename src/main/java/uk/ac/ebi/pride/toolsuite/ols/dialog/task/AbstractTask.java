@@ -3,7 +3,7 @@ package uk.ac.ebi.pride.toolsuite.ols.dialog.task;
 import net.jcip.annotations.GuardedBy;
 import org.slf4j.LoggerFactory;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.OLSDialog;
-import uk.ac.ebi.pride.utilities.ols.web.service.client.OLSClient;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
 
 import javax.swing.*;
 import java.awt.*;
@@ -11,6 +11,7 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This code is licensed under the Apache License, Version 2.0 (the
@@ -29,7 +30,7 @@ public abstract class AbstractTask<T, R>  extends SwingWorker<T, R> {
 
     protected OLSDialog olsDialog;
 
-    protected OLSClient olsClient;
+    protected OntologyBackend olsClient;
 
     protected String nameTask;
 
@@ -46,9 +47,15 @@ public abstract class AbstractTask<T, R>  extends SwingWorker<T, R> {
     @GuardedBy("taskListenersLock")
     private final Collection<TaskListener<T, R>> taskListeners;
 
+    /**
+     * Time of the cancellation request, 0 if the task was never cancelled.
+     */
+    private volatile long cancelRequestTime;
 
+    private volatile long cancelLatency = -1;
 
-    public AbstractTask(String nameTask, OLSDialog olsDialog, OLSClient olsClient) {
+
+    public AbstractTask(String nameTask, OLSDialog olsDialog, OntologyBackend olsClient) {
         this.olsDialog = olsDialog;
         this.olsClient = olsClient;
         this.nameTask  = nameTask;
@@ -57,6 +64,52 @@ public abstract class AbstractTask<T, R>  extends SwingWorker<T, R> {
         owners = Collections.synchronizedList(new ArrayList<>());
     }
 
+    /**
+     * Scheduling class of the task in the TaskManager, tasks the user does
+     * not wait on should return {@link TaskPriority#BACKGROUND}.
+     *
+     * @return TaskPriority the priority of the task
+     */
+    public TaskPriority getPriority() {
+        return TaskPriority.INTERACTIVE_SEARCH;
+    }
+
+    /**
+     * Cancel the task and remember when, so the time until its thread is
+     * released can be measured (see {@link #getCancelLatency(TimeUnit)}).
+     *
+     * @param mayInterruptIfRunning whether the thread running the task is interrupted
+     * @return boolean false if the task could not be cancelled
+     */
+    public final boolean cancelTask(boolean mayInterruptIfRunning) {
+        cancelRequestTime = System.nanoTime();
+        return cancel(mayInterruptIfRunning);
+    }
+
+    /**
+     * Called by the executor when the thread running the task has been
+     * released.
+     */
+    public void threadReleased() {
+        long requested = cancelRequestTime;
+        if (requested != 0 && cancelLatency < 0) {
+            cancelLatency = System.nanoTime() - requested;
+            logger.info("Task '" + nameTask + "' released its thread "
+                    + TimeUnit.NANOSECONDS.toMillis(cancelLatency) + " ms after being cancelled");
+        }
+    }
+
+    /**
+     * Time between the cancellation of the task and the release of its thread.
+     *
+     * @param unit unit of the result
+     * @return long the latency, -1 if the task was not cancelled while running
+     */
+    public long getCancelLatency(TimeUnit unit) {
+        long latency = cancelLatency;
+        return (latency < 0) ? -1 : unit.convert(latency, TimeUnit.NANOSECONDS);
+    }
+
     public String getNameTask() {
         return nameTask;
     }
@@ -196,6 +249,17 @@ public abstract class AbstractTask<T, R>  extends SwingWorker<T, R> {
         }
     }
 
+    /**
+     * Called on the EDT with the chunks published by doInBackground, the task
+     * listeners are notified. Subclasses overriding it should call super.
+     *
+     * @param chunks published chunks
+     */
+    @Override
+    protected void process(java.util.List<R> chunks) {
+        fireProcessListeners(chunks);
+    }
+
     private void fireProcessListeners(java.util.List<R> values) {
         TaskEvent<java.util.List<R>> event = new TaskEvent<>(this, values);
         synchronized (taskListenersLock) {
@@ -0,0 +1,28 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.task;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Threads running the tasks and their OLS requests, see
+ * {@link TaskUtil#setExecutionMode(ExecutionMode)}.
+ * <p>
+ */
+public enum ExecutionMode {
+
+    /**
+     * Fixed pools of platform threads.
+     */
+    PLATFORM,
+
+    /**
+     * One virtual thread per task and per request, the number of requests
+     * in flight is limited by a semaphore. Needs Java 21 or later.
+     */
+    VIRTUAL
+}
@@ -0,0 +1,81 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.task;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Cached executor following the execution mode of {@link TaskUtil}. When the
+ * mode changes a new executor is created, the previous one is shut down: the
+ * tasks it runs complete and its threads then end.
+ * <p>
+ */
+@ThreadSafe
+public class ModeExecutor {
+
+    private final String name;
+
+    private final Object lock = new Object();
+
+    @GuardedBy("lock")
+    private ExecutionMode mode;
+
+    @GuardedBy("lock")
+    private ExecutorService executor;
+
+    /**
+     * Constructor
+     *
+     * @param name prefix of the thread names
+     */
+    public ModeExecutor(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return ExecutorService the executor of the current execution mode
+     */
+    public ExecutorService get() {
+        ExecutionMode current = TaskUtil.getExecutionMode();
+        synchronized (lock) {
+            if (current != mode) {
+                if (executor != null) {
+                    executor.shutdown();
+                }
+                executor = TaskUtil.newCachedExecutor(name);
+                mode = current;
+            }
+            return executor;
+        }
+    }
+
+    /**
+     * Run a task on the executor of the current execution mode.
+     *
+     * @param task the task
+     */
+    public void execute(Runnable task) {
+        while (true) {
+            ExecutorService current = get();
+            try {
+                current.execute(task);
+                return;
+            } catch (RejectedExecutionException e) {
+                // shut down by a mode change in between, retry on the new executor
+                if (get() == current) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
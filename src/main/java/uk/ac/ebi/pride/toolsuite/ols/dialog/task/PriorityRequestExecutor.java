@@ -0,0 +1,287 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.task;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Executor of the OLS requests, it runs them by the priority class of the
+ * task that sent them (see {@link TaskUtil#getRequestPriority()}). It orders
+ * the requests the same way the TaskManager orders the tasks: a queued request
+ * gains one class every aging interval. At most a fixed number of background
+ * requests run at the same time, the others wait in their own queue, so a
+ * request the user is waiting on never queues behind a prefetch.
+ * <p>
+ * The requests run on the threads of a delegate executor, at most
+ * maxConcurrent at the same time. A thread that has finished a request takes
+ * the next one from the queues.
+ * <p>
+ */
+@ThreadSafe
+public class PriorityRequestExecutor extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+
+    private final int maxConcurrent;
+
+    private final int maxBackground;
+
+    private final long agingNanos;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Object lock = new Object();
+
+    @GuardedBy("lock")
+    private final PriorityQueue<Request<?>> interactive = new PriorityQueue<>();
+
+    @GuardedBy("lock")
+    private final Deque<Request<?>> background = new ArrayDeque<>();
+
+    @GuardedBy("lock")
+    private int running;
+
+    @GuardedBy("lock")
+    private int runningBackground;
+
+    @GuardedBy("lock")
+    private boolean shutdown;
+
+    /**
+     * Constructor
+     *
+     * @param delegate      executor whose threads run the requests
+     * @param maxConcurrent maximum number of requests running at the same time
+     * @param maxBackground maximum number of background requests running at the same time
+     * @param aging         time for a queued request to gain one priority class
+     * @param unit          unit of the aging time
+     */
+    public PriorityRequestExecutor(ExecutorService delegate, int maxConcurrent, int maxBackground,
+                                   long aging, TimeUnit unit) {
+        if (maxConcurrent <= 0 || maxBackground <= 0 || aging < 0) {
+            throw new IllegalArgumentException("Request counts must be positive and aging not negative");
+        }
+        this.delegate = delegate;
+        this.maxConcurrent = maxConcurrent;
+        this.maxBackground = Math.min(maxBackground, maxConcurrent);
+        this.agingNanos = unit.toNanos(aging);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new Request<>(callable, TaskUtil.getRequestPriority());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return new Request<>(Executors.callable(runnable, value), TaskUtil.getRequestPriority());
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException("Null request");
+        }
+        Request<?> request = (command instanceof Request) ? (Request<?>) command
+                : new Request<>(Executors.callable(command), TaskUtil.getRequestPriority());
+        Request<?> next;
+        synchronized (lock) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor shut down");
+            }
+            if (request.priority == TaskPriority.BACKGROUND) {
+                background.add(request);
+            } else {
+                interactive.add(request);
+            }
+            if (running >= maxConcurrent) {
+                return;
+            }
+            next = poll();
+            if (next == null) {
+                return;
+            }
+            running++;
+        }
+        try {
+            delegate.execute(new Worker(next));
+        } catch (RejectedExecutionException e) {
+            next.cancel(false);
+            synchronized (lock) {
+                if (next.priority == TaskPriority.BACKGROUND) {
+                    runningBackground--;
+                }
+                running--;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return int number of requests waiting for a thread
+     */
+    public int getQueueSize() {
+        synchronized (lock) {
+            return interactive.size() + background.size();
+        }
+    }
+
+    /**
+     * Take the next request to run: the first of the interactive queue, or
+     * the first background one if it is older once aged and the background
+     * requests running are below their limit.
+     */
+    @GuardedBy("lock")
+    private Request<?> poll() {
+        Request<?> next = interactive.peek();
+        Request<?> nextBackground = (runningBackground < maxBackground) ? background.peek() : null;
+        if (nextBackground != null && (next == null || nextBackground.compareTo(next) < 0)) {
+            background.poll();
+            runningBackground++;
+            return nextBackground;
+        }
+        return interactive.poll();
+    }
+
+    /**
+     * A request has finished, return the next one for the same thread, or
+     * null if the thread should stop.
+     */
+    private Request<?> finished(Request<?> request) {
+        synchronized (lock) {
+            if (request.priority == TaskPriority.BACKGROUND) {
+                runningBackground--;
+            }
+            Request<?> next = poll();
+            if (next == null) {
+                running--;
+                if (shutdown && running == 0) {
+                    delegate.shutdown();
+                }
+            }
+            return next;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            if (running == 0) {
+                delegate.shutdown();
+            }
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> queued = new ArrayList<>();
+        synchronized (lock) {
+            shutdown = true;
+            queued.addAll(interactive);
+            queued.addAll(background);
+            interactive.clear();
+            background.clear();
+        }
+        delegate.shutdownNow();
+        return queued;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        synchronized (lock) {
+            return shutdown;
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        synchronized (lock) {
+            return shutdown && running == 0 && delegate.isTerminated();
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        // the delegate is shut down once the last request has finished
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Runs requests on a thread of the delegate until the queues are empty.
+     */
+    private class Worker implements Runnable {
+
+        private final Request<?> first;
+
+        private Worker(Request<?> first) {
+            this.first = first;
+        }
+
+        @Override
+        public void run() {
+            Request<?> request = first;
+            while (request != null) {
+                // the requests sent while running one keep its priority
+                TaskPriority previous = TaskUtil.setRequestPriority(request.priority);
+                try {
+                    request.run();
+                } finally {
+                    TaskUtil.setRequestPriority(previous);
+                }
+                request = finished(request);
+            }
+        }
+    }
+
+    /**
+     * A queued request, ordered by its aged enqueue time then by arrival.
+     */
+    private class Request<T> extends FutureTask<T> implements Comparable<Request<?>> {
+
+        private final TaskPriority priority;
+
+        private final long key;
+
+        private final long sequence;
+
+        private Request(Callable<T> callable, TaskPriority priority) {
+            super(callable);
+            this.priority = priority;
+            this.key = System.nanoTime() + priority.ordinal() * agingNanos;
+            this.sequence = PriorityRequestExecutor.this.sequence.incrementAndGet();
+        }
+
+        @Override
+        public int compareTo(Request<?> other) {
+            // nanoTime values are only comparable through their difference
+            long difference = key - other.key;
+            if (difference != 0) {
+                return (difference < 0) ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
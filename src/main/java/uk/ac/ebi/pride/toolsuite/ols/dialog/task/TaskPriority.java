@@ -0,0 +1,36 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.task;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Priority classes of the tasks, from the most to the least urgent. The
+ * TaskManager runs the queued tasks of a higher class first, and the request
+ * executor the requests they send (see TaskUtil); a queued task or request
+ * gains one class every aging interval, so background work is delayed but
+ * never starved.
+ * <p>
+ */
+public enum TaskPriority {
+
+    /**
+     * Requests the user is waiting on to see a term: metadata, browser
+     * levels, reveal in the browser.
+     */
+    INTERACTIVE_DETAILS,
+
+    /**
+     * Searches started by the user, and the ontology list.
+     */
+    INTERACTIVE_SEARCH,
+
+    /**
+     * Prefetching, index building and refreshes.
+     */
+    BACKGROUND
+}
@@ -1,5 +1,17 @@
 package uk.ac.ebi.pride.toolsuite.ols.dialog.task;
 
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * This code is licensed under the Apache License, Version 2.0 (the
  * "License"); you may not use this file except in compliance
@@ -9,11 +21,259 @@ package uk.ac.ebi.pride.toolsuite.ols.dialog.task;
  * <p>
  * ==Overview==
  * <p>
- * This class
+ * Helpers shared by the tasks. The request executor runs the OLS calls a task
+ * fans out concurrently. It is separated from the TaskManager pool, so a task
+ * waiting for its requests never blocks the execution of other tasks.
+ * <p>
+ * The number of request threads can be changed with the system property
+ * {@value #REQUEST_THREADS_PROP}.
+ * <p>
+ * The requests run by the priority class of the task sending them, see
+ * {@link PriorityRequestExecutor}: a task sets its class on its thread while
+ * it runs ({@link #setRequestPriority(TaskPriority)}), the calls made outside
+ * a task, e.g. on the EDT, are {@link TaskPriority#INTERACTIVE_DETAILS}. At
+ * most {@value #REQUEST_MAX_BACKGROUND_PROP} background requests run at the
+ * same time (default a quarter of the request threads), and a queued request
+ * gains one class every {@value #REQUEST_AGING_MILLIS_PROP} milliseconds.
+ * <p>
+ * On Java 21 and later the requests and the tasks can run on virtual threads
+ * instead ({@value #EXECUTION_MODE_PROP}=virtual, or
+ * {@link #setExecutionMode(ExecutionMode)} at runtime). The number of
+ * requests in flight is then limited to {@value #VIRTUAL_MAX_CONCURRENT_PROP}
+ * by a semaphore.
+ * <p>
+ * The request threads are marked, see {@link #isRequestThread()}, so the
+ * code running on them never waits for another request.
  * <p>
  * Created by ypriverol (ypriverol@gmail.com) on 09/07/2017.
  */
 public class TaskUtil {
 
+    public static org.slf4j.Logger logger = LoggerFactory.getLogger(TaskUtil.class);
+
+    public static final String REQUEST_THREADS_PROP = "ols-dialog.request.threads";
+
+    public static final String EXECUTION_MODE_PROP = "ols-dialog.threads.mode";
+
+    public static final String VIRTUAL_MAX_CONCURRENT_PROP = "ols-dialog.threads.virtualMaxConcurrent";
+
+    public static final String REQUEST_MAX_BACKGROUND_PROP = "ols-dialog.request.maxBackground";
+
+    public static final String REQUEST_AGING_MILLIS_PROP = "ols-dialog.request.agingMillis";
+
+    public static final int DEFAULT_REQUEST_THREADS = 16;
+
+    public static final long DEFAULT_REQUEST_AGING_MILLIS = 2000;
+
+    public static final int DEFAULT_VIRTUAL_MAX_CONCURRENT = 64;
+
+    private static final Object modeLock = new Object();
+
+    private static volatile ExecutionMode executionMode;
+
+    private static volatile ExecutorService requestExecutor;
+
+    private static final ThreadLocal<Boolean> requestThread = new ThreadLocal<>();
+
+    private static final ThreadLocal<TaskPriority> requestPriority = new ThreadLocal<>();
+
+    static {
+        String mode = System.getProperty(EXECUTION_MODE_PROP, ExecutionMode.PLATFORM.name());
+        setExecutionMode(ExecutionMode.VIRTUAL.name().equalsIgnoreCase(mode.trim())
+                ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM);
+    }
+
+    private TaskUtil() {
+    }
+
+    /**
+     * Executor shared by all the dialogs to run OLS requests concurrently.
+     *
+     * @return ExecutorService request executor
+     */
+    public static ExecutorService getRequestExecutor() {
+        return requestExecutor;
+    }
+
+    public static ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Switch the threads running the OLS requests. The requests already
+     * submitted complete on the previous executor, whose idle threads then
+     * time out. The TaskManagers created afterwards run their tasks in the
+     * same mode.
+     *
+     * @param mode the execution mode
+     * @return ExecutionMode the mode in use, PLATFORM if virtual threads are not available
+     */
+    public static ExecutionMode setExecutionMode(ExecutionMode mode) {
+        synchronized (modeLock) {
+            if (mode == ExecutionMode.VIRTUAL && !VirtualThreadExecutor.isSupported()) {
+                logger.warn("Virtual threads need Java 21 or later, the requests run on platform threads");
+                mode = ExecutionMode.PLATFORM;
+            }
+            if (mode != executionMode) {
+                executionMode = mode;
+                requestExecutor = createRequestExecutor(mode, getRequestConcurrency());
+            }
+            return mode;
+        }
+    }
+
+    /**
+     * Maximum number of requests in flight in virtual thread mode.
+     *
+     * @return int the limit
+     */
+    public static int getVirtualMaxConcurrent() {
+        return Math.max(1, Integer.getInteger(VIRTUAL_MAX_CONCURRENT_PROP, DEFAULT_VIRTUAL_MAX_CONCURRENT));
+    }
+
+    /**
+     * Thread factory for the task threads of the current execution mode.
+     *
+     * @param name prefix of the thread names
+     * @return ThreadFactory daemon platform threads or virtual threads
+     */
+    public static ThreadFactory newThreadFactory(String name) {
+        return (executionMode == ExecutionMode.VIRTUAL)
+                ? VirtualThreadExecutor.newThreadFactory(name) : new DaemonThreadFactory(name);
+    }
+
+    /**
+     * Executor starting a thread for every task that finds no idle one, in
+     * the current execution mode. For tasks whose number is bounded by their
+     * callers.
+     *
+     * @param name prefix of the thread names
+     * @return ExecutorService a cached pool of daemon threads, or virtual threads
+     */
+    public static ExecutorService newCachedExecutor(String name) {
+        if (executionMode == ExecutionMode.VIRTUAL) {
+            return new VirtualThreadExecutor(name, Integer.MAX_VALUE);
+        }
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new DaemonThreadFactory(name));
+    }
+
+    /**
+     * Number of requests the request executor runs at the same time.
+     *
+     * @return int the request threads, or the concurrency limit in virtual thread mode
+     */
+    public static int getRequestConcurrency() {
+        return (executionMode == ExecutionMode.VIRTUAL)
+                ? getVirtualMaxConcurrent()
+                : Math.max(1, Integer.getInteger(REQUEST_THREADS_PROP, DEFAULT_REQUEST_THREADS));
+    }
+
+    /**
+     * Priority class of the requests sent from the current thread.
+     *
+     * @return TaskPriority the class set on the thread, INTERACTIVE_DETAILS if none
+     */
+    public static TaskPriority getRequestPriority() {
+        TaskPriority priority = requestPriority.get();
+        return (priority == null) ? TaskPriority.INTERACTIVE_DETAILS : priority;
+    }
+
+    /**
+     * Set the priority class of the requests sent from the current thread.
+     *
+     * @param priority the class, null to go back to the default
+     * @return TaskPriority the class set before, null if none
+     */
+    public static TaskPriority setRequestPriority(TaskPriority priority) {
+        TaskPriority previous = requestPriority.get();
+        if (priority == null) {
+            requestPriority.remove();
+        } else {
+            requestPriority.set(priority);
+        }
+        return previous;
+    }
+
+    /**
+     * Whether the current thread belongs to a request executor. A request
+     * waiting there for another request could hold all the request threads.
+     *
+     * @return boolean true on a request thread
+     */
+    public static boolean isRequestThread() {
+        return Boolean.TRUE.equals(requestThread.get());
+    }
+
+    /**
+     * Cancel all the futures, interrupting the requests that are running.
+     *
+     * @param futures futures to cancel
+     */
+    public static void cancelAll(Collection<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private static ExecutorService createRequestExecutor(ExecutionMode mode, int concurrency) {
+        ExecutorService threads;
+        if (mode == ExecutionMode.VIRTUAL) {
+            threads = new VirtualThreadExecutor(new RequestThreadFactory(VirtualThreadExecutor.newThreadFactory("ols-request")),
+                    concurrency);
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(concurrency, concurrency,
+                    60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new RequestThreadFactory(new DaemonThreadFactory("ols-request")));
+            pool.allowCoreThreadTimeOut(true);
+            threads = pool;
+        }
+        int maxBackground = Math.max(1, Integer.getInteger(REQUEST_MAX_BACKGROUND_PROP, Math.max(1, concurrency / 4)));
+        long aging = Math.max(0, Long.getLong(REQUEST_AGING_MILLIS_PROP, DEFAULT_REQUEST_AGING_MILLIS));
+        return new PriorityRequestExecutor(threads, concurrency, maxBackground, aging, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Daemon threads, the executors never keep the JVM alive.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final String name;
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private DaemonThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Marks the threads of a request executor.
+     */
+    private static class RequestThreadFactory implements ThreadFactory {
+
+        private final ThreadFactory threads;
+
+        private RequestThreadFactory(ThreadFactory threads) {
+            this.threads = threads;
+        }
 
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return threads.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    requestThread.set(Boolean.TRUE);
+                    runnable.run();
+                }
+            });
+        }
+    }
 }
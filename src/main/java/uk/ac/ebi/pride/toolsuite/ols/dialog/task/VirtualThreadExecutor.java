@@ -0,0 +1,195 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.task;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Executor running every task on a new virtual thread (Java 21 and later).
+ * The number of tasks running at the same time is limited by a semaphore
+ * instead of a pool size: the tasks over the limit wait on the semaphore in
+ * their own virtual thread, which costs no platform thread. The virtual
+ * threads are created through reflection, the dialog still runs on Java 8,
+ * use {@link #isSupported()} before creating an executor.
+ * <p>
+ */
+@ThreadSafe
+public class VirtualThreadExecutor extends AbstractExecutorService {
+
+    private final ThreadFactory threadFactory;
+
+    private final Semaphore permits;
+
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+    private final Object terminationLock = new Object();
+
+    @GuardedBy("terminationLock")
+    private boolean shutdown;
+
+    /**
+     * Constructor
+     *
+     * @param name          prefix of the thread names
+     * @param maxConcurrent maximum number of tasks running at the same time
+     * @throws UnsupportedOperationException if the JVM has no virtual threads
+     */
+    public VirtualThreadExecutor(String name, int maxConcurrent) {
+        this(newThreadFactory(name), maxConcurrent);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param threadFactory factory of the virtual threads, see {@link #newThreadFactory(String)}
+     * @param maxConcurrent maximum number of tasks running at the same time
+     */
+    public VirtualThreadExecutor(ThreadFactory threadFactory, int maxConcurrent) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("The concurrency limit must be positive");
+        }
+        this.threadFactory = threadFactory;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * @return boolean true if the JVM supports virtual threads
+     */
+    public static boolean isSupported() {
+        try {
+            newThreadFactory("ols-probe");
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Create a factory of virtual threads, through Thread.ofVirtual().
+     *
+     * @param name prefix of the thread names
+     * @return ThreadFactory the factory
+     * @throws UnsupportedOperationException if the JVM has no virtual threads
+     */
+    public static ThreadFactory newThreadFactory(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method nameMethod = builderClass.getMethod("name", String.class, long.class);
+            builder = nameMethod.invoke(builder, name + "-", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new UnsupportedOperationException("Virtual threads are not available in this JVM", e);
+        }
+    }
+
+    /**
+     * @return int number of tasks that can still start without waiting
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        if (command == null) {
+            throw new NullPointerException("Null task");
+        }
+        Thread thread;
+        synchronized (terminationLock) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor shut down");
+            }
+            thread = threadFactory.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        permits.acquire();
+                        try {
+                            command.run();
+                        } finally {
+                            permits.release();
+                        }
+                    } catch (InterruptedException e) {
+                        // shut down before the task started
+                    } finally {
+                        threads.remove(Thread.currentThread());
+                        synchronized (terminationLock) {
+                            terminationLock.notifyAll();
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+        }
+        thread.start();
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (terminationLock) {
+            shutdown = true;
+            terminationLock.notifyAll();
+        }
+    }
+
+    /**
+     * Interrupt all the running and waiting tasks. The tasks are not queued,
+     * the returned list is always empty.
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        synchronized (terminationLock) {
+            return shutdown;
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        synchronized (terminationLock) {
+            return shutdown && threads.isEmpty();
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (terminationLock) {
+            while (!(shutdown && threads.isEmpty())) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(terminationLock, remaining);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.task.impl;
+
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.OLSDialog;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.search.LocalIndexManager;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.AbstractTask;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskPriority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Builds the local term index of the preselected ontologies in the background.
+ * Ontologies already indexed (or being indexed by another dialog) are skipped.
+ * <p>
+ */
+public class BuildLocalIndexTask extends AbstractTask<Void, Void> {
+
+    public static org.slf4j.Logger logger = LoggerFactory.getLogger(BuildLocalIndexTask.class);
+
+    private static String NAME_TASK = "Index Preselected Ontologies";
+
+    private List<String> ontologies;
+
+    public BuildLocalIndexTask(OLSDialog olsDialog, OntologyBackend olsClient, Collection<String> ontologies) {
+        super(NAME_TASK, olsDialog, olsClient);
+        this.ontologies = new ArrayList<>(ontologies);
+    }
+
+    @Override
+    public TaskPriority getPriority() {
+        return TaskPriority.BACKGROUND;
+    }
+
+    @Override
+    protected Void doInBackground() throws Exception {
+        LocalIndexManager manager = LocalIndexManager.getInstance(olsClient);
+        for (String ontology : ontologies) {
+            if (isCancelled()) {
+                break;
+            }
+            if (manager.claimBuild(ontology)) {
+                try {
+                    manager.build(ontology, olsClient);
+                } catch (RuntimeException e) {
+                    manager.releaseBuild(ontology);
+                    logger.warn("Failed to index the ontology " + ontology + ": " + e.getMessage());
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void cancelled() {
+
+    }
+
+    @Override
+    protected void succeed(Void results) {
+
+    }
+
+    @Override
+    protected void finished() {
+
+    }
+
+    @Override
+    protected void interrupted(InterruptedException iex) {
+
+    }
+}
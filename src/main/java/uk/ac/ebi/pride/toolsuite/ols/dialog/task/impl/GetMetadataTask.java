@@ -1,14 +1,23 @@
 package uk.ac.ebi.pride.toolsuite.ols.dialog.task.impl;
 
 import uk.ac.ebi.pride.toolsuite.ols.dialog.OLSDialog;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.model.ResultGeneration;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.task.AbstractTask;
-import uk.ac.ebi.pride.utilities.ols.web.service.client.OLSClient;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskPriority;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskUtil;
 import uk.ac.ebi.pride.utilities.ols.web.service.model.ITerm;
 
+import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
 
 /**
  * This code is licensed under the Apache License, Version 2.0 (the
@@ -19,11 +28,14 @@ import java.util.Map;
  * <p>
  * ==Overview==
  * <p>
- * This class
+ * This class retrieves the details of a term: description, xrefs, OBO synonyms
+ * and annotations. The four calls are sent concurrently and every response is
+ * published as soon as it arrives, so the definition and the details table are
+ * filled progressively.
  * <p>
  * Created by ypriverol (ypriverol@gmail.com) on 10/07/2017.
  */
-public class GetMetadataTask extends AbstractTask{
+public class GetMetadataTask extends AbstractTask<Void, GetMetadataTask.TermDetails>{
 
 
     private Integer searchType;
@@ -33,8 +45,24 @@ public class GetMetadataTask extends AbstractTask{
 
     private static String TASK_NAME = "Get Metadata for Term";
 
+    /**
+     * Panes of the tab the term was selected in, kept so the details are not
+     * written to another tab if the user switches while the task is running.
+     */
+    private JTextPane definitionsJTextPane;
+
+    private JTable termDetailsJTable;
+
+    /**
+     * Generation of the term details when the task was created, the details
+     * are dropped once another term has been selected.
+     */
+    private ResultGeneration generation;
+
+    private long stamp;
 
-    public GetMetadataTask(OLSDialog olsDialog, OLSClient olsClient) {
+
+    public GetMetadataTask(OLSDialog olsDialog, OntologyBackend olsClient) {
         super(TASK_NAME, olsDialog, olsClient);
     }
 
@@ -43,11 +71,15 @@ public class GetMetadataTask extends AbstractTask{
      * @param olsDialog
      * @param olsClient
     **/
-    public GetMetadataTask(OLSDialog olsDialog, OLSClient olsClient, ITerm term, String ontologyName, Integer searchType) {
+    public GetMetadataTask(OLSDialog olsDialog, OntologyBackend olsClient, ITerm term, String ontologyName, Integer searchType) {
         super(TASK_NAME, olsDialog, olsClient);
         this.ontologyName = ontologyName;
         this.term = term;
         this.searchType = searchType;
+        this.definitionsJTextPane = olsDialog.currentDefinitionsJTextPane;
+        this.termDetailsJTable = olsDialog.currentTermDetailsJTable;
+        this.generation = olsDialog.getTermDetailsGeneration(searchType);
+        this.stamp = generation.current();
     }
 
 
@@ -67,52 +99,114 @@ public class GetMetadataTask extends AbstractTask{
     }
 
     @Override
-    protected Object doInBackground() throws Exception {
+    public TaskPriority getPriority() {
+        return TaskPriority.INTERACTIVE_DETAILS;
+    }
 
-        List<String> metadata = olsClient.getTermDescription(term.getGlobalId(), ontologyName);
-        String label = term.getName();
-        Map<String, String> xRefs = olsClient.getTermXrefs(term.getGlobalId(), ontologyName);
-        Map<String, String> oboSynonyms =  olsClient.getOBOSynonyms(term.getGlobalId(), ontologyName);
-        Map<String, List<String>> annotations = olsClient.getAnnotations(term.getOboId(), ontologyName);
+    @Override
+    protected Void doInBackground() throws Exception {
 
-        String descriptionText = "";
-        for (String aMetadata : metadata) {
-            descriptionText += aMetadata + "\n";
-        }
-        olsDialog.currentDefinitionsJTextPane.setText("Definition: " + descriptionText);
-        olsDialog.currentDefinitionsJTextPane.setCaretPosition(0);
+        CompletionService<TermDetails> completionService = new ExecutorCompletionService<>(TaskUtil.getRequestExecutor());
+        List<Future<TermDetails>> futures = new ArrayList<>();
 
-        if (olsDialog.currentDefinitionsJTextPane.getText().equalsIgnoreCase("null")) {
-            olsDialog.currentDefinitionsJTextPane.setText("(no definition provided in CV term)");
-        }
-
-        // iterate the xrefs and insert them into the table
-        if(xRefs != null){
-            for (String key : xRefs.keySet()) {
-                ((DefaultTableModel) olsDialog.currentTermDetailsJTable.getModel()).addRow(
-                        new Object[]{key, xRefs.get(key)});
+        futures.add(completionService.submit(new Callable<TermDetails>() {
+            @Override
+            public TermDetails call() throws Exception {
+                List<String> metadata = olsClient.getTermDescription(term.getGlobalId(), ontologyName);
+                String descriptionText = "";
+                if (metadata != null) {
+                    for (String aMetadata : metadata) {
+                        descriptionText += aMetadata + "\n";
+                    }
+                }
+                return TermDetails.definition(descriptionText);
             }
-        }
-        if(oboSynonyms != null){
-            for (String key : oboSynonyms.keySet()) {
-                ((DefaultTableModel) olsDialog.currentTermDetailsJTable.getModel()).addRow(
-                        new Object[]{"synonym:", key});
+        }));
+        futures.add(completionService.submit(new Callable<TermDetails>() {
+            @Override
+            public TermDetails call() throws Exception {
+                Map<String, String> xRefs = olsClient.getTermXrefs(term.getGlobalId(), ontologyName);
+                List<Object[]> rows = new ArrayList<>();
+                if (xRefs != null) {
+                    for (Map.Entry<String, String> xRef : xRefs.entrySet()) {
+                        rows.add(new Object[]{xRef.getKey(), xRef.getValue()});
+                    }
+                }
+                return TermDetails.rows(rows);
             }
-        }
-        if(annotations != null && (searchType == olsDialog.OLS_DIALOG_TERM_NAME_SEARCH || searchType == olsDialog.OLS_DIALOG_TERM_ID_SEARCH)){
-            for (String key : annotations.keySet()) {
-                for (String value : annotations.get(key))
-                    if (value != null && !value.isEmpty())
-                        ((DefaultTableModel) olsDialog.currentTermDetailsJTable.getModel()).addRow(
-                                new Object[]{key, value});
+        }));
+        futures.add(completionService.submit(new Callable<TermDetails>() {
+            @Override
+            public TermDetails call() throws Exception {
+                Map<String, String> oboSynonyms = olsClient.getOBOSynonyms(term.getGlobalId(), ontologyName);
+                List<Object[]> rows = new ArrayList<>();
+                if (oboSynonyms != null) {
+                    for (String key : oboSynonyms.keySet()) {
+                        rows.add(new Object[]{"synonym:", key});
+                    }
+                }
+                return TermDetails.rows(rows);
             }
+        }));
+        if (searchType == OLSDialog.OLS_DIALOG_TERM_NAME_SEARCH || searchType == OLSDialog.OLS_DIALOG_TERM_ID_SEARCH) {
+            futures.add(completionService.submit(new Callable<TermDetails>() {
+                @Override
+                public TermDetails call() throws Exception {
+                    Map<String, List<String>> annotations = olsClient.getAnnotations(term.getOboId(), ontologyName);
+                    List<Object[]> rows = new ArrayList<>();
+                    if (annotations != null) {
+                        for (Map.Entry<String, List<String>> annotation : annotations.entrySet()) {
+                            for (String value : annotation.getValue())
+                                if (value != null && !value.isEmpty())
+                                    rows.add(new Object[]{annotation.getKey(), value});
+                        }
+                    }
+                    return TermDetails.rows(rows);
+                }
+            }));
         }
 
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    publish(completionService.take().get());
+                } catch (ExecutionException e) {
+                    // a failed call only leaves its part of the details empty
+                    logger.warn("Failed to retrieve details of term " + term.getGlobalId() + ": " + e.getCause());
+                }
+            }
+        } finally {
+            TaskUtil.cancelAll(futures);
+        }
 
         return null;
 
     }
 
+    @Override
+    protected void process(List<TermDetails> chunks) {
+        if (isCancelled() || !generation.isCurrent(stamp)) {
+            return;
+        }
+        for (TermDetails details : chunks) {
+            if (details.definition != null) {
+                definitionsJTextPane.setText("Definition: " + details.definition);
+                definitionsJTextPane.setCaretPosition(0);
+
+                if (definitionsJTextPane.getText().equalsIgnoreCase("null")) {
+                    definitionsJTextPane.setText("(no definition provided in CV term)");
+                }
+            }
+            if (details.rows != null) {
+                DefaultTableModel model = (DefaultTableModel) termDetailsJTable.getModel();
+                for (Object[] row : details.rows) {
+                    model.addRow(row);
+                }
+            }
+        }
+        super.process(chunks);
+    }
+
     @Override
     protected void cancelled() {
         operationCancelorInterupted();
@@ -120,7 +214,7 @@ public class GetMetadataTask extends AbstractTask{
     }
 
     @Override
-    protected void succeed(Object results) {
+    protected void succeed(Void results) {
 
     }
 
@@ -145,4 +239,36 @@ public class GetMetadataTask extends AbstractTask{
             olsDialog.currentlySelectedTermIdSearchAccessionNumber = term;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * One part of the details of a term, either its definition or a set of
+     * rows for the term details table.
+     */
+    public static class TermDetails {
+
+        private final String definition;
+
+        private final List<Object[]> rows;
+
+        private TermDetails(String definition, List<Object[]> rows) {
+            this.definition = definition;
+            this.rows = rows;
+        }
+
+        static TermDetails definition(String definition) {
+            return new TermDetails(definition, null);
+        }
+
+        static TermDetails rows(List<Object[]> rows) {
+            return new TermDetails(null, rows);
+        }
+
+        public String getDefinition() {
+            return definition;
+        }
+
+        public List<Object[]> getRows() {
+            return rows;
+        }
+    }
+}
@@ -2,9 +2,10 @@ package uk.ac.ebi.pride.toolsuite.ols.dialog.task.impl;
 
 import org.slf4j.LoggerFactory;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.OLSDialog;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.cache.OntologyRegistry;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.task.AbstractTask;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.util.Util;
-import uk.ac.ebi.pride.utilities.ols.web.service.client.OLSClient;
 import uk.ac.ebi.pride.utilities.ols.web.service.model.Ontology;
 
 import javax.swing.*;
@@ -29,6 +30,12 @@ public class GetOntologiesTask extends AbstractTask{
 
     String ontologyToSelect = "";
 
+    /**
+     * True if the ontology list is reloaded in an already populated dialog,
+     * the current selection is then kept.
+     */
+    private boolean refresh = false;
+
     private static String NAME_TASK = "Get All Ontologies in OLS";
 
     /**
@@ -36,21 +43,32 @@ public class GetOntologiesTask extends AbstractTask{
      * @param olsDialog
      * @param olsClient
      */
-    public GetOntologiesTask(OLSDialog olsDialog,  OLSClient olsClient){
+    public GetOntologiesTask(OLSDialog olsDialog,  OntologyBackend olsClient){
         super(NAME_TASK, olsDialog, olsClient);
     }
 
+    /**
+     * Reload the ontology list of a dialog, keeping the current selection.
+     * @param olsDialog
+     * @param olsClient
+     * @param refresh
+     */
+    public GetOntologiesTask(OLSDialog olsDialog, OntologyBackend olsClient, boolean refresh){
+        this(olsDialog, olsClient);
+        this.refresh = refresh;
+    }
+
     @Override
     protected Object doInBackground() throws Exception {
 
         Vector ontologyNamesAndKeys = new Vector();
         olsDialog.setPreselectedNames2Ids(new HashMap());
-        List<Ontology> ontologies = olsClient.getOntologies();
-        ontologies = Util.refineOntologyNames(ontologies);
+        // the ontologies are shared by all dialogs through the registry, only the labels are shortened
+        List<Ontology> ontologies = OntologyRegistry.getInstance(olsClient).getOntologies(olsClient);
 
         for (Ontology ontology : ontologies) {
             String key = ontology.getConfig().getPreferredPrefix();
-            String temp = ontology.getName() + " [" + key + "]";
+            String temp = Util.refineOntologyName(ontology.getName()) + " [" + key + "]";
             if (olsDialog.getPreselectedOntologies().isEmpty()) {
                 ontologyNamesAndKeys.add(temp);
             } else {
@@ -86,11 +104,18 @@ public class GetOntologiesTask extends AbstractTask{
                     ontologyNamesAndKeys.add(1, OLSDialog.SEARCH_IN_THESE_PRESELECTED_ONTOLOGIES);
                 }
             }
+            if (refresh && olsDialog.getOntologyJComboBox().getSelectedItem() != null) {
+                ontologyToSelect = (String) olsDialog.getOntologyJComboBox().getSelectedItem();
+            }
             olsDialog.getOntologyJComboBox().setModel(new DefaultComboBoxModel(ontologyNamesAndKeys));
             //default selected ontology. Has to be the same name shown in the menu
             olsDialog.getOntologyJComboBox().setSelectedItem(ontologyToSelect);
             olsDialog.setLastSelectedOntology( (String) olsDialog.getOntologyJComboBox().getSelectedItem());
             olsDialog.hideOrShowNewtLinks();
+            // the list was read from the local snapshot, check it against the OLS in the background
+            if (OntologyRegistry.getInstance(olsClient).claimRevalidation()) {
+                olsDialog.getTaskManager().addTask(new RevalidateOntologiesTask(olsDialog, olsClient), false);
+            }
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(olsDialog, olsDialog.DEFAULT_OLS_CONNECTION_ERROR, "Failed to Contact the OLS", JOptionPane.ERROR_MESSAGE);
             logger.error("Error when trying to access OLS: ");
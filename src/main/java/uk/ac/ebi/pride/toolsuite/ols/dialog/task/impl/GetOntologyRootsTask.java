@@ -2,14 +2,16 @@ package uk.ac.ebi.pride.toolsuite.ols.dialog.task.impl;
 
 import org.springframework.web.client.RestClientException;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.OLSDialog;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.task.AbstractTask;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskPriority;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.util.Util;
-import uk.ac.ebi.pride.utilities.ols.web.service.client.OLSClient;
 import uk.ac.ebi.pride.utilities.ols.web.service.model.ITerm;
 import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
 import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -33,10 +35,15 @@ public class GetOntologyRootsTask extends AbstractTask{
 
     private static String TASK_NAME = "Get Ontology Roots Task";
 
-    private static Term notDefinedNode = new Term(null, "No Root Terms Defined!", null, null, null, null, null, null, true, null);
+    /**
+     * Roots retrieved in the background, added to the tree on the EDT.
+     */
+    private volatile List<ITerm> rootTerms;
 
+    private static Term notDefinedNode = new Term(null, "No Root Terms Defined!", null, null, null, null, null, null, false, null);
 
-    public GetOntologyRootsTask(OLSDialog olsDialog, OLSClient olsClient,
+
+    public GetOntologyRootsTask(OLSDialog olsDialog, OntologyBackend olsClient,
                                 String ontologyName, Identifier parentTermId) {
         super(TASK_NAME, olsDialog, olsClient);
         this.ontologyName = ontologyName;
@@ -63,21 +70,17 @@ public class GetOntologyRootsTask extends AbstractTask{
 
     }
 
+    @Override
+    public TaskPriority getPriority() {
+        return TaskPriority.INTERACTIVE_DETAILS;
+    }
+
     @Override
     protected Object doInBackground() throws Exception {
 
-        List<ITerm> rootTerms = null;
         if (!ontologyName.equalsIgnoreCase(olsDialog.SEARCH_IN_ALL_ONTOLOGIES_AVAILABLE_IN_THE_OLS_REGISTRY) && !ontologyName.equalsIgnoreCase(olsDialog.SEARCH_IN_THESE_PRESELECTED_ONTOLOGIES)) {
-            rootTerms = getOntologyRoots(ontologyName, parentTermId);
-        }
-        if (rootTerms!=null) {
-            if (rootTerms.isEmpty()) {
-                olsDialog.treeBrowser.addNode(notDefinedNode);
-            } else {
-                for (ITerm term : rootTerms) {
-                    olsDialog.treeBrowser.addNode(term);
-                }
-            }
+            List<ITerm> roots = getOntologyRoots(ontologyName, parentTermId);
+            rootTerms = roots.isEmpty() ? Collections.<ITerm>singletonList(notDefinedNode) : roots;
         }
         return null;
     }
@@ -107,10 +110,16 @@ public class GetOntologyRootsTask extends AbstractTask{
 
     @Override
     protected void done() {
+        if (rootTerms != null && !isCancelled()) {
+            olsDialog.treeBrowser.addNodes(null, rootTerms, true);
+        }
         olsDialog.treeBrowser.updateTree();
         olsDialog.treeBrowser.scrollToTop();
         olsDialog.currentlySelectedBrowseOntologyAccessionNumber = null;
         olsDialog.clearData(olsDialog.OLS_DIALOG_BROWSE_ONTOLOGY, true, true);
         olsDialog.setCursor(new java.awt.Cursor(java.awt.Cursor.DEFAULT_CURSOR));
+        if (!isCancelled()) {
+            olsDialog.revealPendingTerm(ontologyName);
+        }
     }
 }
@@ -1,13 +1,20 @@
 package uk.ac.ebi.pride.toolsuite.ols.dialog.task.impl;
 
+import org.slf4j.LoggerFactory;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.OLSDialog;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.model.MassSearchModel;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.model.ResultGeneration;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.search.MassIndex;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.search.MassIndexManager;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.search.MassTolerance;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.task.AbstractTask;
-import uk.ac.ebi.pride.utilities.ols.web.service.client.OLSClient;
 import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
 
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * This code is licensed under the Apache License, Version 2.0 (the
@@ -19,11 +26,15 @@ import java.util.List;
  * ==Overview==
  * <p>
  * This class search in the background for PTMs with specific parameters.
- *
+ * The search is answered by the local {@link MassIndex} of the mass type,
+ * loaded once from the OLS. If the index can not be loaded the range is
+ * searched in the OLS directly.
  * <p>
  * Created by ypriverol (ypriverol@gmail.com) on 09/07/2017.
  */
-public class GetPTMModificationsTask extends AbstractTask {
+public class GetPTMModificationsTask extends AbstractTask<List<MassIndex.MassHit>, MassIndex.MassHit> {
+
+    public static org.slf4j.Logger logger = LoggerFactory.getLogger(GetPTMModificationsTask.class);
 
     private MassSearchModel model;
 
@@ -35,16 +46,28 @@ public class GetPTMModificationsTask extends AbstractTask {
 
     private static String NAME_TASK = "Get PTMs by Mass Values";
 
+    /**
+     * Generation of the mass search results when the task was created, null
+     * if the task is not attached to a dialog.
+     */
+    private ResultGeneration generation;
+
+    private long stamp;
+
     /**
      * Default Constructor
      * @param olsDialog olsDialog
      * @param olsClient OLS client
      */
-    public GetPTMModificationsTask(OLSDialog olsDialog, OLSClient olsClient) {
+    public GetPTMModificationsTask(OLSDialog olsDialog, OntologyBackend olsClient) {
         super(NAME_TASK, olsDialog, olsClient);
+        if (olsDialog != null) {
+            generation = olsDialog.getSearchResultsGeneration(OLSDialog.OLS_DIALOG_PSI_MOD_MASS_SEARCH);
+            stamp = generation.current();
+        }
     }
 
-    public GetPTMModificationsTask(OLSDialog olsDialog, OLSClient olsclient,
+    public GetPTMModificationsTask(OLSDialog olsDialog, OntologyBackend olsclient,
                                    MassSearchModel model, String massType, double fromMass, double toMass){
         this(olsDialog, olsclient);
         this.model = model;
@@ -53,23 +76,60 @@ public class GetPTMModificationsTask extends AbstractTask {
         this.toMass = toMass;
     }
 
+    /**
+     * Search the PSI-MOD terms within a tolerance of a mass.
+     * @param olsDialog olsDialog
+     * @param olsclient OLS client
+     * @param model table model receiving the terms
+     * @param massType mass annotation, e.g. DiffMono
+     * @param mass searched mass
+     * @param tolerance tolerance of the search
+     * @param unit unit of the tolerance, Da or ppm
+     */
+    public GetPTMModificationsTask(OLSDialog olsDialog, OntologyBackend olsclient, MassSearchModel model,
+                                   String massType, double mass, double tolerance, MassTolerance unit){
+        this(olsDialog, olsclient, model, massType,
+                mass - unit.toDalton(mass, tolerance), mass + unit.toDalton(mass, tolerance));
+    }
+
     @Override
-    protected Object doInBackground() throws Exception {
-        List<Term> result;
-        result = olsClient.getTermsByAnnotationData("mod", massDeltaType, fromMass, toMass);
-        for(Term term: result){
-            model.addRow(term, massDeltaType);
+    protected List<MassIndex.MassHit> doInBackground() throws Exception {
+        List<MassIndex.MassHit> result;
+        try {
+            result = MassIndexManager.getInstance(olsClient).getIndex(massDeltaType, olsClient).query(fromMass, toMass);
+        } catch (ExecutionException e) {
+            logger.warn("Failed to load the " + massDeltaType + " mass index, searching the OLS: " + e.getCause());
+            List<Term> terms = olsClient.getTermsByAnnotationData(MassIndexManager.MOD_ONTOLOGY, massDeltaType, fromMass, toMass);
+            result = new MassIndex(massDeltaType, (terms == null) ? new ArrayList<Term>() : terms).query(fromMass, toMass);
+        }
+        for (MassIndex.MassHit hit : result) {
+            publish(hit);
         }
         return result;
     }
 
+    @Override
+    protected void process(List<MassIndex.MassHit> chunks) {
+        if (isCancelled() || (generation != null && !generation.isCurrent(stamp))) {
+            return;
+        }
+        Term[] terms = new Term[chunks.size()];
+        double[] masses = new double[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            terms[i] = chunks.get(i).getTerm();
+            masses[i] = chunks.get(i).getMass();
+        }
+        model.addRows(terms, masses, massDeltaType);
+        super.process(chunks);
+    }
+
     @Override
     protected void cancelled() {
 
     }
 
     @Override
-    protected void succeed(Object results) {
+    protected void succeed(List<MassIndex.MassHit> results) {
 
     }
 
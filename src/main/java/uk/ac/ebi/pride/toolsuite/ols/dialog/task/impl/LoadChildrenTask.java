@@ -0,0 +1,112 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.task.impl;
+
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.OLSDialog;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.AbstractTask;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskPriority;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.util.TreeBrowser;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.ITerm;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import javax.swing.*;
+import javax.swing.tree.DefaultMutableTreeNode;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Loads the children of the node selected in the ontology browser. The request
+ * runs as an interactive task, ahead of the prefetch requests, and the
+ * children are attached to the node on the EDT; a node without children loses
+ * its folder icon. If the request fails the node is loaded again the next
+ * time it is selected.
+ * <p>
+ */
+public class LoadChildrenTask extends AbstractTask<DefaultMutableTreeNode, Void> {
+
+    public static org.slf4j.Logger logger = LoggerFactory.getLogger(LoadChildrenTask.class);
+
+    private static String TASK_NAME = "Load Children of Tree Node";
+
+    private DefaultMutableTreeNode node;
+
+    private ITerm term;
+
+    private String ontologyName;
+
+    /**
+     * Constructor, must be called on the EDT as the node is read.
+     *
+     * @param olsDialog    the dialog
+     * @param olsClient    OLS client
+     * @param ontologyName ontology of the browsed terms
+     * @param node         the selected node
+     */
+    public LoadChildrenTask(OLSDialog olsDialog, OntologyBackend olsClient, String ontologyName,
+                            DefaultMutableTreeNode node) {
+        super(TASK_NAME, olsDialog, olsClient);
+        this.ontologyName = ontologyName;
+        this.node = node;
+        this.term = TreeBrowser.getTerm(node);
+    }
+
+    @Override
+    public TaskPriority getPriority() {
+        return TaskPriority.INTERACTIVE_DETAILS;
+    }
+
+    @Override
+    protected DefaultMutableTreeNode doInBackground() throws Exception {
+        List<Term> children = PrefetchChildrenTask.getChildTerms(olsClient, term, ontologyName);
+        // built detached from the tree, it is attached on the EDT
+        DefaultMutableTreeNode subtree = new DefaultMutableTreeNode();
+        if (!children.isEmpty()) {
+            olsDialog.treeBrowser.appendPage(subtree, children);
+        }
+        return subtree;
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            olsDialog.treeBrowser.addChildren(node, get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Error when trying to access OLS: " + e.getCause());
+            JOptionPane.showMessageDialog(olsDialog, OLSDialog.DEFAULT_OLS_CONNECTION_ERROR,
+                    "OLS Connection Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    @Override
+    protected void cancelled() {
+
+    }
+
+    @Override
+    protected void succeed(DefaultMutableTreeNode results) {
+
+    }
+
+    @Override
+    protected void finished() {
+
+    }
+
+    @Override
+    protected void interrupted(InterruptedException iex) {
+
+    }
+}
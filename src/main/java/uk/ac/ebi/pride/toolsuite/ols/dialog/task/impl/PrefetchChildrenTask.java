@@ -0,0 +1,337 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.task.impl;
+
+import uk.ac.ebi.pride.toolsuite.ols.dialog.OLSDialog;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.AbstractTask;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskPriority;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskUtil;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.util.TreeBrowser;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.ITerm;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * This class loads the descendants of a set of nodes of the ontology browser,
+ * down to a configurable depth (system property {@value #DEPTH_PROP}). The
+ * requests are sent concurrently: the children of a term are requested as
+ * soon as the term itself has been received. The subtree of every node is
+ * built detached from the tree and published once it is complete, so it is
+ * attached to the tree with a single model event while the user keeps
+ * browsing. Terms known to have no children are not requested, and the
+ * number of requests of a task is bounded by {@value #MAX_REQUESTS_PROP}.
+ * At most {@value #WINDOW_PROP} requests of a task are in flight at the same
+ * time (default {@value #DEFAULT_WINDOW}), the others wait in the task, so a
+ * wide expansion never fills the request queue ahead of the requests the
+ * user is waiting on.
+ * <p>
+ */
+public class PrefetchChildrenTask extends AbstractTask<Void, PrefetchChildrenTask.NodeChildren> {
+
+    private static String TASK_NAME = "Prefetch Children of Tree Nodes";
+
+    private static final String NO_ROOT_TERMS_DEFINED = "No Root Terms Defined!";
+
+    public static final String DEPTH_PROP = "ols-dialog.browse.prefetchDepth";
+
+    public static final String MAX_REQUESTS_PROP = "ols-dialog.browse.prefetchMaxRequests";
+
+    public static final int DEFAULT_DEPTH = 2;
+
+    public static final String WINDOW_PROP = "ols-dialog.browse.prefetchWindow";
+
+    public static final int DEFAULT_MAX_REQUESTS = 400;
+
+    public static final int DEFAULT_WINDOW = 4;
+
+    private int depth;
+
+    private int maxRequests;
+
+    private int window = Math.max(1, Integer.getInteger(WINDOW_PROP, DEFAULT_WINDOW));
+
+    private String ontologyName;
+
+    private List<DefaultMutableTreeNode> nodes = new ArrayList<>();
+
+    private List<ITerm> terms = new ArrayList<>();
+
+    /**
+     * Constructor, must be called on the EDT as the nodes are read.
+     *
+     * @param olsDialog    the dialog
+     * @param olsClient    OLS client
+     * @param ontologyName ontology of the browsed terms
+     * @param parents      the nodes to load the children for
+     */
+    public PrefetchChildrenTask(OLSDialog olsDialog, OntologyBackend olsClient, String ontologyName,
+                                List<DefaultMutableTreeNode> parents) {
+        this(olsDialog, olsClient, ontologyName, parents,
+                Math.max(1, Integer.getInteger(DEPTH_PROP, DEFAULT_DEPTH)),
+                Math.max(1, Integer.getInteger(MAX_REQUESTS_PROP, DEFAULT_MAX_REQUESTS)));
+    }
+
+    /**
+     * Constructor, must be called on the EDT as the nodes are read.
+     *
+     * @param olsDialog    the dialog
+     * @param olsClient    OLS client
+     * @param ontologyName ontology of the browsed terms
+     * @param parents      the nodes to load the descendants for
+     * @param depth        number of levels loaded below the nodes, 1 for the children only
+     * @param maxRequests  maximum number of requests sent by the task
+     */
+    public PrefetchChildrenTask(OLSDialog olsDialog, OntologyBackend olsClient, String ontologyName,
+                                List<DefaultMutableTreeNode> parents, int depth, int maxRequests) {
+        super(TASK_NAME, olsDialog, olsClient);
+        this.ontologyName = ontologyName;
+        this.depth = depth;
+        this.maxRequests = maxRequests;
+        for (DefaultMutableTreeNode node : parents) {
+            ITerm term = TreeBrowser.getTerm(node);
+            if (!node.isRoot() && node.getChildCount() == 0 && node.getAllowsChildren() && mayHaveChildren(term)) {
+                nodes.add(node);
+                terms.add(term);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    public TaskPriority getPriority() {
+        return TaskPriority.BACKGROUND;
+    }
+
+    @Override
+    protected Void doInBackground() throws Exception {
+
+        CompletionService<Children> completionService = new ExecutorCompletionService<>(TaskUtil.getRequestExecutor());
+        List<Future<Children>> futures = new ArrayList<>();
+        // requests not sent yet, the window is full
+        Deque<ChildrenCall> waiting = new ArrayDeque<>();
+
+        // one detached subtree per node, with the number of its pending requests
+        DefaultMutableTreeNode[] subtrees = new DefaultMutableTreeNode[nodes.size()];
+        int[] pending = new int[nodes.size()];
+        boolean[] failed = new boolean[nodes.size()];
+        int inFlight = 0;
+        int requests = 0;
+
+        try {
+            for (int i = 0; i < nodes.size(); i++) {
+                subtrees[i] = new DefaultMutableTreeNode();
+                waiting.add(new ChildrenCall(i, subtrees[i], terms.get(i), 1));
+                pending[i]++;
+                requests++;
+            }
+
+            while (!isCancelled()) {
+                while (inFlight < window && !waiting.isEmpty()) {
+                    futures.add(completionService.submit(waiting.poll()));
+                    inFlight++;
+                }
+                if (inFlight == 0) {
+                    break;
+                }
+                Children result = completionService.take().get();
+                inFlight--;
+                int root = result.root;
+                pending[root]--;
+
+                if (result.children == null) {
+                    // the node is loaded again when it is selected
+                    failed[root] |= (result.node == subtrees[root]);
+                } else if (result.children.isEmpty()) {
+                    if (result.node != subtrees[root]) {
+                        result.node.setAllowsChildren(false);
+                    }
+                } else {
+                    // only the first page of a wide node is built and prefetched
+                    for (DefaultMutableTreeNode childNode : olsDialog.treeBrowser.appendPage(result.node, result.children)) {
+                        ITerm child = TreeBrowser.getTerm(childNode);
+                        if (result.level < depth && requests < maxRequests && mayHaveChildren(child)) {
+                            waiting.add(new ChildrenCall(root, childNode, child, result.level + 1));
+                            pending[root]++;
+                            requests++;
+                        }
+                    }
+                }
+
+                if (pending[root] == 0 && !failed[root]) {
+                    publish(new NodeChildren(nodes.get(root), subtrees[root]));
+                }
+            }
+        } finally {
+            TaskUtil.cancelAll(futures);
+        }
+        return null;
+    }
+
+    @Override
+    protected void process(List<NodeChildren> chunks) {
+        if (isCancelled()) {
+            return;
+        }
+        for (NodeChildren children : chunks) {
+            olsDialog.treeBrowser.addChildren(children.node, children.subtree);
+        }
+        super.process(chunks);
+    }
+
+    /**
+     * Retrieve the direct children of a term of the browser.
+     *
+     * @param olsClient OLS client
+     * @param term      the parent term
+     * @param ontology  the ontology of the term
+     * @return List<Term> the children, empty if the term has none
+     */
+    public static List<Term> getChildTerms(OntologyBackend olsClient, ITerm term, String ontology) {
+        if (!mayHaveChildren(term) || term.getGlobalId() == null) {
+            return Collections.emptyList();
+        }
+        Identifier termIdentifier;
+        if (term.getGlobalId().getIdentifier() == null) {
+            termIdentifier = term.getIri();
+        } else if (term.getGlobalId().getIdentifier().equalsIgnoreCase(NO_ROOT_TERMS_DEFINED)) {
+            return Collections.emptyList();
+        } else {
+            termIdentifier = term.getGlobalId();
+        }
+        List<Term> children = olsClient.getTermChildren(termIdentifier, ontology, 1);
+        return (children == null) ? Collections.<Term>emptyList() : children;
+    }
+
+    /**
+     * Return false only if the term is known to be a leaf.
+     *
+     * @param term the term of a node
+     * @return boolean true if the term may have children
+     */
+    public static boolean mayHaveChildren(ITerm term) {
+        return term != null && (!(term instanceof Term) || ((Term) term).isHasChildren());
+    }
+
+    @Override
+    protected void cancelled() {
+
+    }
+
+    @Override
+    protected void succeed(Void results) {
+
+    }
+
+    @Override
+    protected void finished() {
+
+    }
+
+    @Override
+    protected void interrupted(InterruptedException iex) {
+
+    }
+
+    /**
+     * The subtree loaded for a node.
+     */
+    public static class NodeChildren {
+
+        private final DefaultMutableTreeNode node;
+
+        private final DefaultMutableTreeNode subtree;
+
+        NodeChildren(DefaultMutableTreeNode node, DefaultMutableTreeNode subtree) {
+            this.node = node;
+            this.subtree = subtree;
+        }
+
+        public DefaultMutableTreeNode getNode() {
+            return node;
+        }
+
+        /**
+         * Detached node holding the loaded descendants of the node.
+         *
+         * @return DefaultMutableTreeNode the subtree
+         */
+        public DefaultMutableTreeNode getSubtree() {
+            return subtree;
+        }
+    }
+
+    /**
+     * Children of a term of a subtree, null if the request failed.
+     */
+    private static class Children {
+
+        private final int root;
+
+        private final DefaultMutableTreeNode node;
+
+        private final int level;
+
+        private final List<Term> children;
+
+        private Children(int root, DefaultMutableTreeNode node, int level, List<Term> children) {
+            this.root = root;
+            this.node = node;
+            this.level = level;
+            this.children = children;
+        }
+    }
+
+    /**
+     * Request of the children of one term, a failure is returned as a result
+     * so the task knows which subtree it belongs to.
+     */
+    private class ChildrenCall implements Callable<Children> {
+
+        private final int root;
+
+        private final DefaultMutableTreeNode node;
+
+        private final ITerm term;
+
+        private final int level;
+
+        private ChildrenCall(int root, DefaultMutableTreeNode node, ITerm term, int level) {
+            this.root = root;
+            this.node = node;
+            this.term = term;
+            this.level = level;
+        }
+
+        @Override
+        public Children call() {
+            List<Term> children = null;
+            try {
+                children = getChildTerms(olsClient, term, ontologyName);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to prefetch the children of " + term.getGlobalId() + ": " + e.getMessage());
+            }
+            return new Children(root, node, level, children);
+        }
+    }
+}
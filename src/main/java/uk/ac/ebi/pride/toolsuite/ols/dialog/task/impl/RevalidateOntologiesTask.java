@@ -0,0 +1,70 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.task.impl;
+
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.OLSDialog;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.cache.OntologyRegistry;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.AbstractTask;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskPriority;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Revalidates the ontology registry read from the local snapshot against the
+ * OLS. If the registry changed, the ontology list of the dialog is reloaded.
+ * <p>
+ */
+public class RevalidateOntologiesTask extends AbstractTask<Boolean, Void> {
+
+    public static org.slf4j.Logger logger = LoggerFactory.getLogger(RevalidateOntologiesTask.class);
+
+    private static String NAME_TASK = "Revalidate Ontologies in OLS";
+
+    public RevalidateOntologiesTask(OLSDialog olsDialog, OntologyBackend olsClient) {
+        super(NAME_TASK, olsDialog, olsClient);
+    }
+
+    @Override
+    public TaskPriority getPriority() {
+        return TaskPriority.BACKGROUND;
+    }
+
+    @Override
+    protected Boolean doInBackground() throws Exception {
+        return OntologyRegistry.getInstance(olsClient).revalidate(olsClient);
+    }
+
+    @Override
+    protected void cancelled() {
+
+    }
+
+    @Override
+    protected void succeed(Boolean changed) {
+        if (changed != null && changed && olsDialog.isDisplayable()) {
+            logger.info("The ontology registry changed in the OLS, reloading the ontology list");
+            olsDialog.getTaskManager().addTask(new GetOntologiesTask(olsDialog, olsClient, true), false);
+        }
+    }
+
+    @Override
+    protected void finished() {
+
+    }
+
+    @Override
+    protected void interrupted(InterruptedException iex) {
+
+    }
+
+    @Override
+    protected void failed(Throwable error) {
+        logger.warn("Failed to revalidate the ontology registry snapshot: " + error.getMessage());
+    }
+}
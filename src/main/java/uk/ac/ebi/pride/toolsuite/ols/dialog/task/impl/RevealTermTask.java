@@ -0,0 +1,227 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.task.impl;
+
+import uk.ac.ebi.pride.toolsuite.ols.dialog.OLSDialog;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.AbstractTask;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskPriority;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskUtil;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.util.TreeBrowser;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.ITerm;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * This class finds where a term sits in the ontology browser and expands the
+ * tree down to it. The ancestors are fetched one level at a time, all the
+ * terms of a level concurrently, until a term shown at the top of the
+ * browser is reached. The children of every ancestor on the found path are
+ * then fetched in one concurrent batch, so the branch is built in a single
+ * pass on the EDT.
+ * <p>
+ */
+public class RevealTermTask extends AbstractTask<RevealTermTask.TermPath, Void> {
+
+    private static String TASK_NAME = "Reveal Term in Ontology Browser";
+
+    /**
+     * Guard against cycles or very deep ontologies.
+     */
+    private static final int MAX_LEVELS = 64;
+
+    private ITerm term;
+
+    private String ontologyName;
+
+    private Set<String> topLevelKeys;
+
+    /**
+     * Constructor, must be called on the EDT once the top level of the
+     * browser has been loaded.
+     *
+     * @param olsDialog    the dialog
+     * @param olsClient    OLS client
+     * @param term         the term to reveal
+     * @param ontologyName the ontology shown in the browser
+     */
+    public RevealTermTask(OLSDialog olsDialog, OntologyBackend olsClient, ITerm term, String ontologyName) {
+        super(TASK_NAME, olsDialog, olsClient);
+        this.term = term;
+        this.ontologyName = ontologyName;
+        this.topLevelKeys = new HashSet<>();
+        for (ITerm topLevelTerm : olsDialog.treeBrowser.getTopLevelTerms()) {
+            topLevelKeys.add(TreeBrowser.getKey(topLevelTerm));
+        }
+    }
+
+    @Override
+    public TaskPriority getPriority() {
+        return TaskPriority.INTERACTIVE_DETAILS;
+    }
+
+    @Override
+    protected TermPath doInBackground() throws Exception {
+
+        List<ITerm> path = findPath();
+        if (path == null) {
+            return null;
+        }
+
+        // the children of every ancestor, so the branch can be built at once
+        List<Future<List<Term>>> futures = new ArrayList<>();
+        try {
+            for (final ITerm ancestor : path.subList(0, path.size() - 1)) {
+                futures.add(TaskUtil.getRequestExecutor().submit(new Callable<List<Term>>() {
+                    @Override
+                    public List<Term> call() throws Exception {
+                        return PrefetchChildrenTask.getChildTerms(olsClient, ancestor, ontologyName);
+                    }
+                }));
+            }
+            List<List<Term>> children = new ArrayList<>(futures.size());
+            for (Future<List<Term>> future : futures) {
+                children.add(future.get());
+            }
+            return new TermPath(path, children);
+        } finally {
+            TaskUtil.cancelAll(futures);
+        }
+    }
+
+    /**
+     * Walk up the ancestors of the term, level by level, until a term of the
+     * top level of the browser is found.
+     *
+     * @return List<ITerm> the path from the top level down to the term, null if none is found
+     */
+    private List<ITerm> findPath() throws InterruptedException, ExecutionException {
+
+        // the child of every ancestor on the shortest path found to it
+        Map<String, ITerm> children = new HashMap<>();
+        Map<String, ITerm> visited = new HashMap<>();
+        visited.put(TreeBrowser.getKey(term), term);
+
+        List<ITerm> level = Collections.singletonList(term);
+        String found = topLevelKeys.contains(TreeBrowser.getKey(term)) ? TreeBrowser.getKey(term) : null;
+
+        for (int depth = 0; found == null && !level.isEmpty() && depth < MAX_LEVELS && !isCancelled(); depth++) {
+            List<Future<List<Term>>> futures = new ArrayList<>(level.size());
+            try {
+                for (final ITerm child : level) {
+                    futures.add(TaskUtil.getRequestExecutor().submit(new Callable<List<Term>>() {
+                        @Override
+                        public List<Term> call() throws Exception {
+                            Identifier identifier = (child.getGlobalId() != null && child.getGlobalId().getIdentifier() != null)
+                                    ? child.getGlobalId() : child.getIri();
+                            List<Term> parents = olsClient.getTermParents(identifier, ontologyName, 1);
+                            return (parents == null) ? Collections.<Term>emptyList() : parents;
+                        }
+                    }));
+                }
+                List<ITerm> nextLevel = new ArrayList<>();
+                for (int i = 0; i < level.size() && found == null; i++) {
+                    for (Term parent : futures.get(i).get()) {
+                        String key = TreeBrowser.getKey(parent);
+                        if (key == null || visited.containsKey(key)) {
+                            continue;
+                        }
+                        visited.put(key, parent);
+                        children.put(key, level.get(i));
+                        nextLevel.add(parent);
+                        if (topLevelKeys.contains(key)) {
+                            found = key;
+                            break;
+                        }
+                    }
+                }
+                level = nextLevel;
+            } finally {
+                TaskUtil.cancelAll(futures);
+            }
+        }
+
+        if (found == null) {
+            return null;
+        }
+        LinkedList<ITerm> path = new LinkedList<>();
+        for (ITerm current = visited.get(found); current != null; current = children.get(TreeBrowser.getKey(current))) {
+            path.add(current);
+        }
+        return path;
+    }
+
+    @Override
+    protected void succeed(TermPath termPath) {
+        if (termPath == null || !olsDialog.treeBrowser.reveal(termPath.getPath(), termPath.getChildren())) {
+            JOptionPane.showMessageDialog(olsDialog,
+                    "The term could not be found in the hierarchy of the browsed ontology.",
+                    "Reveal in Ontology Browser", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    @Override
+    protected void failed(Throwable error) {
+        logger.warn("Failed to reveal " + term.getGlobalId() + " in the ontology browser: " + error.getMessage());
+        JOptionPane.showMessageDialog(olsDialog, OLSDialog.DEFAULT_OLS_CONNECTION_ERROR,
+                "OLS Connection Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    @Override
+    protected void cancelled() {
+
+    }
+
+    @Override
+    protected void finished() {
+
+    }
+
+    @Override
+    protected void interrupted(InterruptedException iex) {
+
+    }
+
+    /**
+     * The path from the top level of the browser down to the term, with the
+     * children of every ancestor on the path.
+     */
+    public static class TermPath {
+
+        private final List<ITerm> path;
+
+        private final List<List<Term>> children;
+
+        TermPath(List<ITerm> path, List<List<Term>> children) {
+            this.path = path;
+            this.children = children;
+        }
+
+        public List<ITerm> getPath() {
+            return path;
+        }
+
+        public List<List<Term>> getChildren() {
+            return children;
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package uk.ac.ebi.pride.toolsuite.ols.dialog.task.impl;
 
+import org.slf4j.LoggerFactory;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.OLSDialog;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.backend.OntologyBackend;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.model.ResultGeneration;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.model.TermTableModel;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.search.LocalIndexManager;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.search.LocalTermIndex;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.search.ParallelSearchEngine;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.search.SearchListener;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.search.SearchMode;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.task.AbstractTask;
-import uk.ac.ebi.pride.utilities.ols.web.service.client.OLSClient;
 import uk.ac.ebi.pride.utilities.ols.web.service.model.*;
 
-import javax.swing.table.DefaultTableModel;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 /**
  * This code is licensed under the Apache License, Version 2.0 (the
@@ -18,11 +28,28 @@ import java.util.Map;
  * <p>
  * ==Overview==
  * <p>
- * TermSearchTask Search for all terms that contains an specific keyword.
+ * TermSearchTask Search for all terms that contains an specific keyword. The
+ * search is run by a {@link ParallelSearchEngine}, by default with a single
+ * query filtered on all the ontologies (see {@link SearchMode}). Ontologies
+ * with a {@link LocalTermIndex} are searched locally, without any request.
+ * The index only covers the labels and synonyms: the OLS is still searched
+ * for an accession, when the index has no hit, or when it has more than
+ * {@value #LOCAL_SEARCH_LIMIT} of them. The other local answers are not
+ * refreshed from the OLS, that would send a remote search per keystroke
+ * again: the index itself is downloaded again once its snapshot is older
+ * than {@link LocalIndexManager#MAX_AGE_DAYS_PROP}.
+ * <p>
+ * Every page of results is published as soon as it arrives and added to the
+ * table on the EDT, so the first rows are visible after one round-trip. The
+ * time to the first result is logged and available from
+ * {@link #getTimeToFirstResult()}. The width of the accession column follows
+ * the rows added (see ColumnWidthTracker).
  * <p>
  * Created by ypriverol (ypriverol@gmail.com) on 09/07/2017.
  */
-public class TermSearchTask extends AbstractTask{
+public class TermSearchTask extends AbstractTask<Integer, ITerm[]>{
+
+    public static org.slf4j.Logger logger = LoggerFactory.getLogger(TermSearchTask.class);
 
     private String ontologyName;
 
@@ -32,13 +59,39 @@ public class TermSearchTask extends AbstractTask{
 
     private  boolean keyReverse;
 
-    private Integer numTerms = 0;
+    /**
+     * Number of rows added to the table, only accessed on the EDT.
+     */
+    private int numTerms = 0;
 
-    private static String TASK_NAME = "Search Terms by Name";
+    private long startTime;
+
+    private volatile long timeToFirstResult = -1;
+
+    /**
+     * Generation of the result table when the search was created, the results
+     * are dropped once the table has been cleared for another search.
+     */
+    private final ResultGeneration generation = olsDialog.getSearchResultsGeneration(OLSDialog.OLS_DIALOG_TERM_NAME_SEARCH);
+
+    private final long stamp = generation.current();
 
-    private static int SEARCH_PAGE_SIZE = 100;
+    private SearchMode searchMode = SearchMode.getDefault();
 
-    public TermSearchTask(OLSDialog olsDialog, OLSClient olsClient) {
+    /**
+     * Maximum number of terms taken from the local index of an ontology.
+     */
+    public static final int LOCAL_SEARCH_LIMIT = 1000;
+
+    /**
+     * Accessions and their fragments, e.g. "MS:1000", "GO_0008150" or
+     * "0008150", which the local indexes do not cover.
+     */
+    private static final Pattern IDENTIFIER = Pattern.compile("^([A-Za-z][A-Za-z0-9.-]*[:_])?\\d+\\*?$|^[A-Za-z][A-Za-z0-9.-]*:\\*?$");
+
+    private static String TASK_NAME = "Search Terms by Name";
+
+    public TermSearchTask(OLSDialog olsDialog, OntologyBackend olsClient) {
         super(TASK_NAME, olsDialog, olsClient);
     }
 
@@ -50,7 +103,7 @@ public class TermSearchTask extends AbstractTask{
      * @param keyReverse
      * @param preselectedOntologies
      */
-    public TermSearchTask(OLSDialog olsDialog, OLSClient olsClient, String term, boolean keyReverse, Map<String, List<Identifier>> preselectedOntologies) {
+    public TermSearchTask(OLSDialog olsDialog, OntologyBackend olsClient, String term, boolean keyReverse, Map<String, List<Identifier>> preselectedOntologies) {
         super(TASK_NAME, olsDialog, olsClient);
         this.preselectedOntologies = preselectedOntologies;
         this.term = term;
@@ -64,7 +117,7 @@ public class TermSearchTask extends AbstractTask{
      * @param term
      * @param keyReverse
      */
-    public TermSearchTask(OLSDialog olsDialog, OLSClient olsClient, String term, boolean keyReverse) {
+    public TermSearchTask(OLSDialog olsDialog, OntologyBackend olsClient, String term, boolean keyReverse) {
         super(TASK_NAME, olsDialog, olsClient);
         this.term = term;
         this.keyReverse = keyReverse;
@@ -78,22 +131,39 @@ public class TermSearchTask extends AbstractTask{
      * @param keyReverse
      * @param ontology
      */
-    public TermSearchTask(OLSDialog olsDialog, OLSClient olsClient, String term, boolean keyReverse, String ontology) {
+    public TermSearchTask(OLSDialog olsDialog, OntologyBackend olsClient, String term, boolean keyReverse, String ontology) {
         super(TASK_NAME, olsDialog, olsClient);
         this.term = term;
         this.keyReverse = keyReverse;
         this.ontologyName = ontology;
     }
 
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    public void setSearchMode(SearchMode searchMode) {
+        this.searchMode = searchMode;
+    }
+
+    /**
+     * Time between the start of the search and the first results shown in
+     * the table.
+     *
+     * @return long time in milliseconds, -1 if no result has been shown
+     */
+    public long getTimeToFirstResult() {
+        return timeToFirstResult;
+    }
+
+    private static boolean isIdentifier(String query) {
+        return query != null && IDENTIFIER.matcher(query.trim()).matches();
+    }
+
     @Override
     protected void done() {
-        Integer width = olsDialog.getPreferredColumnWidth(olsDialog.olsResultsTermNameSearchJTable, olsDialog.olsResultsTermNameSearchJTable.getColumn("Accession").getModelIndex(), 6);
-        if (width != null) {
-            olsDialog.olsResultsTermNameSearchJTable.getColumn("Accession").setMinWidth(width);
-            olsDialog.olsResultsTermNameSearchJTable.getColumn("Accession").setMaxWidth(width);
-        } else {
-            olsDialog.olsResultsTermNameSearchJTable.getColumn("Accession").setMinWidth(15);
-            olsDialog.olsResultsTermNameSearchJTable.getColumn("Accession").setMaxWidth(Integer.MAX_VALUE);
+        if (!generation.isCurrent(stamp)) {
+            return;
         }
         olsDialog.termNameSearchJTextField.requestFocus();
         olsDialog.setCursor(new java.awt.Cursor(java.awt.Cursor.DEFAULT_CURSOR));
@@ -106,41 +176,81 @@ public class TermSearchTask extends AbstractTask{
     }
 
     @Override
-    protected Object doInBackground() throws Exception {
-        numTerms = 0;
+    protected Integer doInBackground() throws Exception {
+        startTime = System.nanoTime();
+        // null searches all the ontologies in the OLS
+        List<String> ontologies = null;
         if(preselectedOntologies != null && !preselectedOntologies.isEmpty()){
-            for (String preselectedOntology : preselectedOntologies.keySet()) {
-                searchOnOntology(preselectedOntology);
-            }
+            ontologies = new ArrayList<>(preselectedOntologies.keySet());
         }else if(ontologyName != null){
-            searchOnOntology(ontologyName);
-        }else{
-            List<Ontology> ontologies = olsClient.getOntologies();
-            for (Ontology preselectedOntology : ontologies) {
-                searchOnOntology(preselectedOntology.getConfig().getPreferredPrefix());
+            ontologies = new ArrayList<>();
+            ontologies.add(ontologyName);
+        }
+        int numResults = 0;
+        if (ontologies != null && LocalIndexManager.isEnabled()) {
+            // answer from the local index of the ontologies already indexed
+            List<String> remoteOntologies = new ArrayList<>();
+            for (String ontology : ontologies) {
+                LocalTermIndex index = LocalIndexManager.getInstance(olsClient).getIndex(ontology);
+                List<Term> terms = (index == null || isIdentifier(term))
+                        ? new ArrayList<Term>() : index.search(term, LOCAL_SEARCH_LIMIT + 1);
+                if (terms.isEmpty()) {
+                    // not indexed, or not a label or synonym: the OLS also searches the ids
+                    remoteOntologies.add(ontology);
+                } else if (terms.size() > LOCAL_SEARCH_LIMIT) {
+                    logger.info("More than " + LOCAL_SEARCH_LIMIT + " local hits for '" + term + "' in "
+                            + ontology + ", searching the OLS for all of them");
+                    remoteOntologies.add(ontology);
+                } else {
+                    numResults += terms.size();
+                    publish(terms.toArray(new ITerm[terms.size()]));
+                }
+            }
+            if (remoteOntologies.isEmpty()) {
+                return numResults;
             }
+            ontologies = remoteOntologies;
         }
-        return null;
+        return numResults + new ParallelSearchEngine(olsClient).search(term, ontologies, searchMode, new SearchListener() {
+            @Override
+            public void resultsFound(String ontology, int page, SearchResult[] results) {
+                if (!isCancelled()) {
+                    publish(results);
+                }
+            }
+        });
     }
 
-    private void searchOnOntology(String preselectedOntology) {
-        SearchQuery resultSearch = olsClient.getSearchQuery(0, term, preselectedOntology.toLowerCase(), false, null, false, SEARCH_PAGE_SIZE);
-        int numberPages = resultSearch.getResponse().getNumFound()/SEARCH_PAGE_SIZE;
-        if(resultSearch != null && resultSearch.getResponse() != null && resultSearch.getResponse().getSearchResults() != null){
-            addResultToTable(resultSearch.getResponse().getSearchResults());
+    @Override
+    protected void process(List<ITerm[]> chunks) {
+        if (isCancelled() || !generation.isCurrent(stamp)) {
+            return;
         }
-        for(int i = 1; i < numberPages; i++){
-            resultSearch = olsClient.getSearchQuery(i, term, preselectedOntology.toLowerCase(), false, null, false, SEARCH_PAGE_SIZE);
-            if(resultSearch != null && resultSearch.getResponse() != null && resultSearch.getResponse().getSearchResults() != null){
-                addResultToTable(resultSearch.getResponse().getSearchResults());
-            }
+        boolean first = numTerms == 0;
+        // all the pages received since the last call are appended at once
+        int total = 0;
+        for (ITerm[] searchResults : chunks) {
+            total += searchResults.length;
+        }
+        ITerm[] batch = new ITerm[total];
+        int position = 0;
+        for (ITerm[] searchResults : chunks) {
+            System.arraycopy(searchResults, 0, batch, position, searchResults.length);
+            position += searchResults.length;
         }
+        addResultToTable(batch);
+        if (first && numTerms > 0) {
+            timeToFirstResult = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            logger.info("First results for '" + term + "' shown after " + timeToFirstResult + " ms");
+            olsDialog.setCursor(new java.awt.Cursor(java.awt.Cursor.DEFAULT_CURSOR));
+        }
+        olsDialog.numberOfTermsTermNameSearchJTextField.setText("" + numTerms);
+        super.process(chunks);
     }
 
-    private void addResultToTable(SearchResult[] searchResults) {
+    private void addResultToTable(ITerm[] searchResults) {
         if(searchResults != null && searchResults.length > 0){
-            for(ITerm key: searchResults)
-                ((DefaultTableModel) olsDialog.olsResultsTermNameSearchJTable.getModel()).addRow(new Object[]{key, key});
+            ((TermTableModel) olsDialog.olsResultsTermNameSearchJTable.getModel()).addTerms(searchResults);
             numTerms += searchResults.length;
         }
     }
@@ -151,7 +261,7 @@ public class TermSearchTask extends AbstractTask{
     }
 
     @Override
-    protected void succeed(Object results) {
+    protected void succeed(Integer results) {
 
     }
 
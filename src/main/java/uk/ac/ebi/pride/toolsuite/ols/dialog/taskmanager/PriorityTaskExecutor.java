@@ -0,0 +1,179 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.taskmanager;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskPriority;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Executor of the TaskManager, it runs the tasks by priority class with
+ * aging. A queued task is ordered by its enqueue time plus one aging interval
+ * per priority class below {@link TaskPriority#INTERACTIVE_DETAILS}, so a
+ * task waiting for longer than the interval overtakes the tasks of the class
+ * above that arrive after it. The key of a queued task never changes, the
+ * queue stays a plain priority queue.
+ * <p>
+ * The pool grows up to its maximum number of threads while tasks arrive and
+ * shrinks back when the threads are idle; with a factory of virtual threads
+ * the maximum is only a concurrency limit. At most a fixed number of
+ * background tasks run at the same time, the others wait in their own queue,
+ * so the interactive tasks always find free threads.
+ * <p>
+ */
+@ThreadSafe
+public class PriorityTaskExecutor {
+
+    private final ThreadPoolExecutor executor;
+
+    private final long agingNanos;
+
+    private final int maxBackground;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Object backgroundLock = new Object();
+
+    @GuardedBy("backgroundLock")
+    private int runningBackground;
+
+    @GuardedBy("backgroundLock")
+    private final Deque<PrioritizedTask> waitingBackground = new ArrayDeque<>();
+
+    /**
+     * Constructor
+     *
+     * @param maxThreads    maximum number of threads
+     * @param maxBackground maximum number of background tasks running at the same time
+     * @param aging         time for a queued task to gain one priority class
+     * @param unit          unit of the aging time
+     * @param threadFactory factory of the task threads
+     */
+    public PriorityTaskExecutor(int maxThreads, int maxBackground, long aging, TimeUnit unit, ThreadFactory threadFactory) {
+        if (maxThreads <= 0 || maxBackground <= 0 || aging < 0) {
+            throw new IllegalArgumentException("Thread counts must be positive and aging not negative");
+        }
+        this.agingNanos = unit.toNanos(aging);
+        this.maxBackground = Math.min(maxBackground, maxThreads);
+        // core = max: a thread is started for a new task until the maximum is
+        // reached, the idle threads time out
+        this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, 30L, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Schedule a task.
+     *
+     * @param task     the task
+     * @param priority priority class of the task
+     */
+    public void execute(Runnable task, TaskPriority priority) {
+        PrioritizedTask prioritized = new PrioritizedTask(task, priority, System.nanoTime(), sequence.incrementAndGet());
+        if (priority == TaskPriority.BACKGROUND) {
+            synchronized (backgroundLock) {
+                if (runningBackground >= maxBackground) {
+                    waitingBackground.add(prioritized);
+                    return;
+                }
+                runningBackground++;
+            }
+        }
+        executor.execute(prioritized);
+    }
+
+    /**
+     * A background task has finished, start the next waiting one.
+     */
+    private void backgroundFinished() {
+        PrioritizedTask next;
+        synchronized (backgroundLock) {
+            next = waitingBackground.poll();
+            if (next == null) {
+                runningBackground--;
+                return;
+            }
+        }
+        if (!executor.isShutdown()) {
+            executor.execute(next);
+        }
+    }
+
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    public int getQueueSize() {
+        synchronized (backgroundLock) {
+            return executor.getQueue().size() + waitingBackground.size();
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public List<Runnable> shutdownNow() {
+        synchronized (backgroundLock) {
+            waitingBackground.clear();
+        }
+        return executor.shutdownNow();
+    }
+
+    /**
+     * A queued task, ordered by its aged enqueue time then by arrival.
+     */
+    private class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+        private final Runnable task;
+
+        private final TaskPriority priority;
+
+        private final long key;
+
+        private final long sequence;
+
+        private PrioritizedTask(Runnable task, TaskPriority priority, long enqueued, long sequence) {
+            this.task = task;
+            this.priority = priority;
+            this.key = enqueued + priority.ordinal() * agingNanos;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                if (priority == TaskPriority.BACKGROUND) {
+                    backgroundFinished();
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            // nanoTime values are only comparable through their difference
+            long difference = key - other.key;
+            if (difference != 0) {
+                return (difference < 0) ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -4,21 +4,35 @@ import net.jcip.annotations.GuardedBy;
 import net.jcip.annotations.ThreadSafe;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.prop.PropertyChangeHelper;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.task.AbstractTask;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.ExecutionMode;
 import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskListener;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskPriority;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.TaskUtil;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * TaskManager acts as a thread pool, it does the followings:
  * <p/>
  * 1. maintain a list of Tasks
  * <p/>
- * 2. manage a queue of Tasks
+ * 2. manage a queue of Tasks, ordered by the priority of the tasks
  * <p/>
+ * The pool size, the number of background tasks running at the same time
+ * and the aging interval of the queue can be changed with the system
+ * properties {@value #MAX_THREADS_PROP}, {@value #MAX_BACKGROUND_PROP} and
+ * {@value #AGING_MILLIS_PROP}.
+ * <p/>
+ * A cancelled task is interrupted, its requests are cancelled with it (see
+ * InterruptibleBackend). The time between the cancellation and the release of
+ * the thread running the task is logged, the average is available from
+ * {@link #getAverageCancelLatency(TimeUnit)}.
  */
 @ThreadSafe
 public class TaskManager extends PropertyChangeHelper {
@@ -32,10 +46,22 @@ public class TaskManager extends PropertyChangeHelper {
      */
     public final static String REMOVE_TASK_PROP = "remove_new_task";
 
+    public static final String MAX_THREADS_PROP = "ols-dialog.tasks.maxThreads";
+
+    public static final String MAX_BACKGROUND_PROP = "ols-dialog.tasks.maxBackground";
+
+    public static final String AGING_MILLIS_PROP = "ols-dialog.tasks.agingMillis";
+
+    public static final int DEFAULT_MAX_THREADS = 20;
+
+    public static final int DEFAULT_MAX_BACKGROUND = 4;
+
+    public static final long DEFAULT_AGING_MILLIS = 2000;
+
     /**
-     * Threshold pool executor, it is responsible to running all the tasks
+     * Priority executor, it is responsible to running all the tasks
      */
-    private final ExecutorService executor;
+    private final PriorityTaskExecutor executor;
 
     /**
      * task list lock
@@ -53,18 +79,27 @@ public class TaskManager extends PropertyChangeHelper {
      */
     private final PropertyChangeListener taskPropListener;
 
-    private final int numberOfThreads = 20;
+    /**
+     * Number of cancelled tasks that released their thread, and the sum of
+     * their cancel latencies in nanoseconds.
+     */
+    private final AtomicLong releasedTasks = new AtomicLong();
 
+    private final AtomicLong totalCancelLatency = new AtomicLong();
 
     /**
      * Constructor
      */
     public TaskManager() {
 
-        // thread pool
-        this.executor = new ThreadPoolExecutor(5, numberOfThreads,
-                                               0L, TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<>());
+        // thread pool, in virtual thread mode the number of threads is only a limit
+        int maxThreads = (TaskUtil.getExecutionMode() == ExecutionMode.VIRTUAL)
+                ? TaskUtil.getVirtualMaxConcurrent()
+                : Math.max(1, Integer.getInteger(MAX_THREADS_PROP, DEFAULT_MAX_THREADS));
+        this.executor = new PriorityTaskExecutor(maxThreads,
+                Math.max(1, Integer.getInteger(MAX_BACKGROUND_PROP, DEFAULT_MAX_BACKGROUND)),
+                Math.max(0, Long.getLong(AGING_MILLIS_PROP, DEFAULT_AGING_MILLIS)), TimeUnit.MILLISECONDS,
+                TaskUtil.newThreadFactory("ols-task"));
 
         // a list of tasks
         this.tasks = new CopyOnWriteArrayList<>();
@@ -106,7 +141,7 @@ public class TaskManager extends PropertyChangeHelper {
         if (notify) {
             firePropertyChange(ADD_TASK_PROP, oldTasks, newTasks);
         }
-        executor.execute(task);
+        executor.execute(new ReleaseTracker(task), task.getPriority());
     }
 
     /**
@@ -219,7 +254,7 @@ public class TaskManager extends PropertyChangeHelper {
                 List<AbstractTask> oldTasks, newTasks;
                 oldTasks = new ArrayList<>(tasks);
                 tasks.remove(task);
-                canceled = task.cancel(interrupt);
+                canceled = task.cancelTask(interrupt);
                 newTasks = new ArrayList<>(tasks);
                 task.removePropertyChangeListener(taskPropListener);
 
@@ -230,6 +265,21 @@ public class TaskManager extends PropertyChangeHelper {
         return canceled;
     }
 
+    /**
+     * Average time between the cancellation of a running task and the
+     * release of its thread.
+     *
+     * @param unit unit of the result
+     * @return long the average latency, -1 if no running task has been cancelled
+     */
+    public long getAverageCancelLatency(TimeUnit unit) {
+        long count = releasedTasks.get();
+        if (count == 0) {
+            return -1;
+        }
+        return unit.convert(totalCancelLatency.get() / count, TimeUnit.NANOSECONDS);
+    }
+
     /**
      * orderly shutdown, all existing tasks are allowed to finish
      * no task is submitted.
@@ -273,4 +323,38 @@ public class TaskManager extends PropertyChangeHelper {
             }
         }
     }
+
+    /**
+     * Runs a task and records the release of its thread.
+     */
+    private class ReleaseTracker implements Runnable {
+
+        private final AbstractTask task;
+
+        private ReleaseTracker(AbstractTask task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (task.isCancelled()) {
+                // cancelled in the queue, it never held a thread
+                task.run();
+                return;
+            }
+            // the requests of the task are queued by its priority class
+            TaskPriority previous = TaskUtil.setRequestPriority(task.getPriority());
+            try {
+                task.run();
+            } finally {
+                TaskUtil.setRequestPriority(previous);
+                task.threadReleased();
+                long latency = task.getCancelLatency(TimeUnit.NANOSECONDS);
+                if (latency >= 0) {
+                    releasedTasks.incrementAndGet();
+                    totalCancelLatency.addAndGet(latency);
+                }
+            }
+        }
+    }
 }
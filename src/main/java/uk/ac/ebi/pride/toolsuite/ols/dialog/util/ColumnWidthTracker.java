@@ -0,0 +1,242 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.util;
+
+import uk.ac.ebi.pride.utilities.ols.web.service.model.ITerm;
+
+import javax.swing.*;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.plaf.basic.BasicHTML;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableModel;
+import java.awt.*;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Keeps a table column just wide enough for its header and its widest cell.
+ * Instead of measuring the whole column after every search, the tracker
+ * listens to the table model and measures only the rows inserted. In a large
+ * batch only an evenly spaced sample of at most {@link #MAX_MEASURED_ROWS}
+ * rows is rendered, the other rows are measured from their text with the font
+ * metrics and the padding of the rendered cells, so a wider value that was not
+ * sampled still widens the column. The width of every rendered value is
+ * cached, so a term shown again is never rendered to be measured.
+ * <p>
+ * Must be used on the EDT, like the table.
+ */
+public class ColumnWidthTracker implements TableModelListener {
+
+    /**
+     * Maximum number of cells rendered to measure one model event.
+     */
+    public static final int MAX_MEASURED_ROWS = 256;
+
+    private final JTable table;
+
+    private final int modelColumn;
+
+    private final int margin;
+
+    private final Map<Object, Integer> measuredWidths = new WeakHashMap<>();
+
+    private int headerWidth = -1;
+
+    private int cellWidth = 0;
+
+    /**
+     * Font metrics of the rendered cells, null until a cell has been rendered.
+     */
+    private FontMetrics metrics;
+
+    /**
+     * Width of a rendered cell around its text, e.g. insets and borders.
+     */
+    private int padding = 0;
+
+    /**
+     * Constructor
+     *
+     * @param table       the table
+     * @param modelColumn model index of the tracked column
+     * @param margin      margin added to the left and right of the column
+     */
+    public ColumnWidthTracker(JTable table, int modelColumn, int margin) {
+        this.table = table;
+        this.modelColumn = modelColumn;
+        this.margin = margin;
+    }
+
+    /**
+     * Track the width of a column of a table, the tracker follows the model
+     * of the table if it is replaced.
+     *
+     * @param table      the table
+     * @param columnName name of the tracked column
+     * @param margin     margin added to the left and right of the column
+     * @return ColumnWidthTracker the tracker
+     */
+    public static ColumnWidthTracker install(final JTable table, String columnName, int margin) {
+        final ColumnWidthTracker tracker = new ColumnWidthTracker(table, table.getColumn(columnName).getModelIndex(), margin);
+        table.getModel().addTableModelListener(tracker);
+        table.addPropertyChangeListener("model", new java.beans.PropertyChangeListener() {
+            @Override
+            public void propertyChange(java.beans.PropertyChangeEvent evt) {
+                ((TableModel) evt.getOldValue()).removeTableModelListener(tracker);
+                ((TableModel) evt.getNewValue()).addTableModelListener(tracker);
+                tracker.reset();
+            }
+        });
+        tracker.reset();
+        return tracker;
+    }
+
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        if (e.getType() == TableModelEvent.INSERT && e.getFirstRow() >= 0) {
+            measure(e.getFirstRow(), e.getLastRow());
+            apply();
+        } else if (e.getType() != TableModelEvent.UPDATE || e.getFirstRow() == TableModelEvent.HEADER_ROW
+                || e.getLastRow() == Integer.MAX_VALUE) {
+            // rows removed or the whole content replaced
+            reset();
+        }
+    }
+
+    /**
+     * Measure the column again from the current content of the model.
+     */
+    public void reset() {
+        cellWidth = 0;
+        metrics = null;
+        padding = 0;
+        int rowCount = table.getModel().getRowCount();
+        if (rowCount > 0) {
+            measure(0, rowCount - 1);
+        }
+        apply();
+    }
+
+    /**
+     * Current width of the column, margins included.
+     *
+     * @return int width in pixels
+     */
+    public int getWidth() {
+        return Math.max(getHeaderWidth(), cellWidth) + 2 * margin;
+    }
+
+    private void measure(int firstRow, int lastRow) {
+        TableModel model = table.getModel();
+        lastRow = Math.min(lastRow, model.getRowCount() - 1);
+        int count = lastRow - firstRow + 1;
+        if (count <= 0) {
+            return;
+        }
+        int step = Math.max(1, count / MAX_MEASURED_ROWS);
+        for (int row = firstRow; row <= lastRow; row++) {
+            Object value = model.getValueAt(row, modelColumn);
+            int width = ((row - firstRow) % step == 0) ? measure(value) : estimate(value);
+            cellWidth = Math.max(cellWidth, width);
+        }
+    }
+
+    private int measure(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer width = measuredWidths.get(value);
+        if (width == null) {
+            int viewColumn = table.convertColumnIndexToView(modelColumn);
+            if (viewColumn < 0) {
+                return 0;
+            }
+            TableCellRenderer renderer = table.getColumnModel().getColumn(viewColumn).getCellRenderer();
+            if (renderer == null) {
+                renderer = table.getDefaultRenderer(table.getModel().getColumnClass(modelColumn));
+            }
+            Component comp = renderer.getTableCellRendererComponent(table, value, false, false, 0, viewColumn);
+            width = comp.getPreferredSize().width;
+            measuredWidths.put(value, width);
+            if (comp instanceof JLabel) {
+                String text = ((JLabel) comp).getText();
+                if (text != null && !BasicHTML.isHTMLString(text)) {
+                    metrics = comp.getFontMetrics(comp.getFont());
+                    padding = Math.max(padding, width - metrics.stringWidth(text));
+                }
+            }
+        }
+        return width;
+    }
+
+    /**
+     * Width of a cell from its text, without rendering it. The cell is
+     * rendered if no cell has given the font metrics yet.
+     */
+    private int estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer width = measuredWidths.get(value);
+        if (width != null) {
+            return width;
+        }
+        if (metrics == null) {
+            return measure(value);
+        }
+        String text = getText(value);
+        return (text == null) ? 0 : metrics.stringWidth(text) + padding;
+    }
+
+    /**
+     * Text shown for a value, the accession of a term.
+     */
+    private static String getText(Object value) {
+        if (value instanceof ITerm) {
+            ITerm term = (ITerm) value;
+            return (term.getGlobalId() != null) ? term.getGlobalId().getIdentifier() : null;
+        }
+        return String.valueOf(value);
+    }
+
+    private int getHeaderWidth() {
+        if (headerWidth < 0) {
+            int viewColumn = table.convertColumnIndexToView(modelColumn);
+            if (viewColumn < 0 || table.getTableHeader() == null) {
+                return 0;
+            }
+            TableColumn column = table.getColumnModel().getColumn(viewColumn);
+            TableCellRenderer renderer = column.getHeaderRenderer();
+            if (renderer == null) {
+                renderer = table.getTableHeader().getDefaultRenderer();
+            }
+            headerWidth = renderer.getTableCellRendererComponent(table, column.getHeaderValue(), false, false, 0, 0)
+                    .getPreferredSize().width;
+        }
+        return headerWidth;
+    }
+
+    private void apply() {
+        int viewColumn = table.convertColumnIndexToView(modelColumn);
+        if (viewColumn < 0) {
+            return;
+        }
+        TableColumn column = table.getColumnModel().getColumn(viewColumn);
+        if (table.getModel().getRowCount() == 0) {
+            column.setMinWidth(15);
+            column.setMaxWidth(Integer.MAX_VALUE);
+        } else {
+            int width = getWidth();
+            column.setMinWidth(width);
+            column.setMaxWidth(width);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package uk.ac.ebi.pride.toolsuite.ols.dialog.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.ITerm;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Identifier;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Ontology;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.SearchQuery;
+import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This code is licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * ==Overview==
+ * <p>
+ * Converts terms to and from maps with the shape of the OLS REST responses
+ * (e.g. "iri", "label", "obo_id", "synonyms"). Terms are rebuilt with the same
+ * Jackson mapping the OLSClient uses to read the OLS responses, so the local
+ * snapshots do not depend on the constructors of the term model.
+ */
+public final class OlsJsonUtil {
+
+    public static final String IRI = "iri";
+    public static final String LABEL = "label";
+    public static final String DESCRIPTION = "description";
+    public static final String OBO_ID = "obo_id";
+    public static final String SHORT_FORM = "short_form";
+    public static final String ONTOLOGY_NAME = "ontology_name";
+    public static final String ONTOLOGY_PREFIX = "ontology_prefix";
+    public static final String SYNONYMS = "synonyms";
+    public static final String HAS_CHILDREN = "has_children";
+    public static final String IS_ROOT = "is_root";
+    public static final String IS_OBSOLETE = "is_obsolete";
+    public static final String OBO_XREF = "obo_xref";
+    public static final String XREF_DATABASE = "database";
+    public static final String XREF_ID = "id";
+    public static final String ANNOTATION = "annotation";
+    public static final String NUMBER_OF_TERMS = "numberOfTerms";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+
+    private OlsJsonUtil() {
+    }
+
+    /**
+     * Shared mapper, it ignores unknown properties.
+     *
+     * @return ObjectMapper the mapper
+     */
+    public static ObjectMapper getMapper() {
+        return MAPPER;
+    }
+
+    /**
+     * Build a term from a map shaped as an OLS term response.
+     *
+     * @param olsTerm OLS term map
+     * @return Term the term
+     * @throws IllegalArgumentException if the map can not be converted
+     */
+    public static Term toTerm(Map<String, ?> olsTerm) {
+        return MAPPER.convertValue(olsTerm, Term.class);
+    }
+
+    /**
+     * Build a search response from maps shaped as OLS term responses.
+     *
+     * @param numFound total number of results of the query
+     * @param start    position of the first result
+     * @param olsTerms OLS term maps of the results of the page
+     * @return SearchQuery the search response
+     * @throws IllegalArgumentException if the maps can not be converted
+     */
+    public static SearchQuery toSearchQuery(int numFound, int start, List<Map<String, Object>> olsTerms) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("numFound", numFound);
+        response.put("start", start);
+        response.put("docs", olsTerms);
+        Map<String, Object> searchQuery = new LinkedHashMap<>();
+        searchQuery.put("response", response);
+        return MAPPER.convertValue(searchQuery, SearchQuery.class);
+    }
+
+    /**
+     * Build an ontology from its id, preferred prefix and title, shaped as an
+     * OLS ontology response.
+     *
+     * @param id     ontology id, e.g. "ms"
+     * @param prefix preferred prefix, e.g. "MS"
+     * @param title  ontology title
+     * @return Ontology the ontology
+     * @throws IllegalArgumentException if the map can not be converted
+     */
+    public static Ontology toOntology(String id, String prefix, String title) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("id", id);
+        config.put("namespace", id);
+        config.put("preferredPrefix", prefix);
+        config.put("title", title);
+        Map<String, Object> ontology = new LinkedHashMap<>();
+        ontology.put("ontologyId", id);
+        ontology.put("config", config);
+        return MAPPER.convertValue(ontology, Ontology.class);
+    }
+
+    /**
+     * Convert a term to a map shaped as an OLS term response, with the
+     * properties needed to rebuild it for searching and browsing, the same
+     * ones the OfflineTermStore writes for the terms of the OBO files.
+     *
+     * @param term     the term
+     * @param synonyms synonyms of the term, can be null
+     * @return Map the OLS term map
+     */
+    public static Map<String, Object> toOlsMap(ITerm term, Collection<String> synonyms) {
+        Map<String, Object> olsTerm = new LinkedHashMap<>();
+        putIdentifier(olsTerm, IRI, term.getIri());
+        olsTerm.put(LABEL, term.getName());
+        putIdentifier(olsTerm, OBO_ID, term.getOboId());
+        olsTerm.put(ONTOLOGY_NAME, term.getOntologyName());
+        Map<?, ?> serialized = serialize(term);
+        Object shortForm = value(serialized.get(SHORT_FORM));
+        if (shortForm == null && term.getOboId() != null && term.getOboId().getIdentifier() != null) {
+            shortForm = term.getOboId().getIdentifier().replaceFirst(":", "_");
+        }
+        if (shortForm != null) {
+            olsTerm.put(SHORT_FORM, shortForm);
+        }
+        Object prefix = serialized.get(ONTOLOGY_PREFIX);
+        if (prefix == null && term.getOntologyName() != null) {
+            prefix = term.getOntologyName().toUpperCase();
+        }
+        if (prefix != null) {
+            olsTerm.put(ONTOLOGY_PREFIX, prefix);
+        }
+        if (serialized.get(DESCRIPTION) instanceof Collection && !((Collection<?>) serialized.get(DESCRIPTION)).isEmpty()) {
+            olsTerm.put(DESCRIPTION, new ArrayList<>((Collection<?>) serialized.get(DESCRIPTION)));
+        }
+        if (term instanceof Term) {
+            olsTerm.put(HAS_CHILDREN, ((Term) term).isHasChildren());
+        }
+        if (synonyms != null && !synonyms.isEmpty()) {
+            olsTerm.put(SYNONYMS, new ArrayList<>(synonyms));
+        }
+        return olsTerm;
+    }
+
+    /**
+     * Read the synonyms of a term from its OLS representation. The term model
+     * keeps them, but does not expose them through ITerm.
+     *
+     * @param term the term
+     * @return List<String> synonyms, empty if the term has none
+     */
+    public static List<String> getSynonyms(ITerm term) {
+        List<String> synonyms = new ArrayList<>();
+        try {
+            Object values = MAPPER.convertValue(term, Map.class).get(SYNONYMS);
+            if (values instanceof Collection) {
+                for (Object value : (Collection<?>) values) {
+                    if (value != null) {
+                        synonyms.add(value.toString());
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // the term can not be serialized, only its label is known
+        }
+        return synonyms;
+    }
+
+    /**
+     * OLS representation of a term, empty if it can not be serialized.
+     */
+    /**
+     * Number of terms of an ontology as announced by the OLS registry.
+     *
+     * @param ontology the ontology
+     * @return long the number of terms, -1 if it is not known
+     */
+    public static long getNumberOfTerms(Ontology ontology) {
+        if (ontology == null) {
+            return -1;
+        }
+        try {
+            Object value = MAPPER.convertValue(ontology, Map.class).get(NUMBER_OF_TERMS);
+            return (value instanceof Number) ? ((Number) value).longValue() : -1;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static Map<?, ?> serialize(ITerm term) {
+        try {
+            Map<?, ?> serialized = MAPPER.convertValue(term, Map.class);
+            return (serialized != null) ? serialized : new LinkedHashMap<>();
+        } catch (IllegalArgumentException e) {
+            return new LinkedHashMap<>();
+        }
+    }
+
+    /**
+     * Value of a serialized identifier, written as a string or as an object.
+     */
+    private static Object value(Object identifier) {
+        if (identifier instanceof Map) {
+            return ((Map<?, ?>) identifier).get("identifier");
+        }
+        return identifier;
+    }
+
+    private static void putIdentifier(Map<String, Object> olsTerm, String key, Identifier identifier) {
+        if (identifier != null && identifier.getIdentifier() != null) {
+            olsTerm.put(key, identifier.getIdentifier());
+        }
+    }
+}
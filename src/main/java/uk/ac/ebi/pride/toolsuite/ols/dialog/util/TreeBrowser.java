@@ -1,6 +1,7 @@
 package uk.ac.ebi.pride.toolsuite.ols.dialog.util;
 
 import uk.ac.ebi.pride.toolsuite.ols.dialog.OLSDialog;
+import uk.ac.ebi.pride.toolsuite.ols.dialog.task.impl.PrefetchChildrenTask;
 import org.apache.commons.lang3.StringUtils;
 import uk.ac.ebi.pride.utilities.ols.web.service.model.ITerm;
 import uk.ac.ebi.pride.utilities.ols.web.service.model.Term;
@@ -12,11 +13,22 @@ import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
 
 /**
  * A simple tree browser for browsing a given ontology in the OLS. <br><br> The
  * code is based on an example provided by Richard Stanford, a tutorial reader.
+ * <br><br> The model asks the nodes whether they allow children, so a node
+ * whose term has children is shown as a folder before its children are
+ * loaded. The descendants of the nodes of an expanded level are prefetched in
+ * the background, see PrefetchChildrenTask. <br><br> Wide nodes are paged:
+ * only the first children are added, followed by a "load more" node that
+ * adds the next page when it is selected. The tree runs in large model mode
+ * with a fixed row height, so it does not measure the nodes that are not
+ * shown.
  *
  * @author Richard Cote
  * @author Harald Barsnes
@@ -44,6 +56,15 @@ public class TreeBrowser extends JPanel implements TreeSelectionListener, TreeMo
      */
     private static JScrollPane scrollPane;
 
+    public static final String PAGE_SIZE_PROP = "ols-dialog.browse.pageSize";
+
+    public static final int DEFAULT_PAGE_SIZE = 200;
+
+    /**
+     * Maximum number of children added to a node at once.
+     */
+    private final int pageSize = Math.max(1, Integer.getInteger(PAGE_SIZE_PROP, DEFAULT_PAGE_SIZE));
+
     /**
      * Creates a new TreeBrowser with an OLSDialog as the parent.
      * <p>
@@ -57,11 +78,14 @@ public class TreeBrowser extends JPanel implements TreeSelectionListener, TreeMo
 
         this.olsDialog = parent;
         ITerm term = new Term(null, null, null, null, null, "Load Ontology to Browse", null, null, true, null);
-        tree = new JTree(new DefaultTreeModel(new DefaultMutableTreeNode(new TermNode(term, null))));
+        tree = new JTree(new DefaultTreeModel(new DefaultMutableTreeNode(new TermNode(term))));
         tree.setEditable(false);
+        tree.setRowHeight(Math.max(18, tree.getFontMetrics(tree.getFont()).getHeight() + 2));
+        tree.setLargeModel(true);
         tree.getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
         tree.setShowsRootHandles(true);
         tree.addTreeSelectionListener(this);
+        tree.addTreeExpansionListener(this);
 
         // add the tree to a scroll pane
         scrollPane = new JScrollPane(tree);
@@ -84,10 +108,9 @@ public class TreeBrowser extends JPanel implements TreeSelectionListener, TreeMo
      */
     public void initialize(String ontologyName) {
         Term term = new Term(null, null, null, null, null, ontologyName, null, null, false, null);
-        rootNode = new DefaultMutableTreeNode(new TermNode(term, null));
-        treeModel = new DefaultTreeModel(rootNode);
+        rootNode = new DefaultMutableTreeNode(new TermNode(term));
+        treeModel = new DefaultTreeModel(rootNode, true);
         treeModel.addTreeModelListener(this);
-        tree.addTreeExpansionListener(this);
         tree.setModel(treeModel);
     }
 
@@ -137,8 +160,7 @@ public class TreeBrowser extends JPanel implements TreeSelectionListener, TreeMo
     public DefaultMutableTreeNode addNode(
             DefaultMutableTreeNode parent, ITerm term, boolean shouldBeVisible) {
 
-        DefaultMutableTreeNode childNode =
-                new DefaultMutableTreeNode(new TermNode(term));
+        DefaultMutableTreeNode childNode = createNode(term);
 
         if (parent == null) {
             parent = rootNode;
@@ -154,6 +176,254 @@ public class TreeBrowser extends JPanel implements TreeSelectionListener, TreeMo
         return childNode;
     }
 
+    /**
+     * Append a list of terms under a node, or the root node if no node is
+     * specified. The tree is notified with a single insertion event, and
+     * scrolled at most once. Only the first page of terms is added if the
+     * list is longer than a page, see appendPage.
+     *
+     * @param parent          the node to add the terms to
+     * @param terms           the terms to add
+     * @param shouldBeVisible if true the view is scrolled to the last added node
+     * @return List<DefaultMutableTreeNode> the added nodes
+     */
+    public List<DefaultMutableTreeNode> addNodes(
+            DefaultMutableTreeNode parent, List<? extends ITerm> terms, boolean shouldBeVisible) {
+
+        if (parent == null) {
+            parent = rootNode;
+        }
+
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int firstIndex = parent.getChildCount();
+        List<DefaultMutableTreeNode> childNodes = appendPage(parent, terms);
+        int[] indices = new int[parent.getChildCount() - firstIndex];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = firstIndex + i;
+        }
+        treeModel.nodesWereInserted(parent, indices);
+
+        // make sure the user can see the new nodes
+        if (shouldBeVisible) {
+            tree.scrollPathToVisible(new TreePath(childNodes.get(childNodes.size() - 1).getPath()));
+        }
+
+        return childNodes;
+    }
+
+    /**
+     * Append the nodes of the first page of terms to a node, followed by a
+     * "load more" node holding the other terms. The model is not notified,
+     * so this can be called from any thread on a node that is not yet part
+     * of the tree.
+     *
+     * @param parent the node to add the terms to
+     * @param terms  the terms to add
+     * @return List<DefaultMutableTreeNode> the added term nodes
+     */
+    public List<DefaultMutableTreeNode> appendPage(DefaultMutableTreeNode parent, List<? extends ITerm> terms) {
+        int count = Math.min(terms.size(), pageSize);
+        List<DefaultMutableTreeNode> childNodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DefaultMutableTreeNode childNode = createNode(terms.get(i));
+            parent.add(childNode);
+            childNodes.add(childNode);
+        }
+        if (count < terms.size()) {
+            parent.add(new DefaultMutableTreeNode(new MoreNode(terms.subList(count, terms.size())), false));
+        }
+        return childNodes;
+    }
+
+    /**
+     * Replace a "load more" node by the next page of children.
+     *
+     * @param moreNode the "load more" node
+     */
+    private void loadMore(DefaultMutableTreeNode moreNode) {
+        DefaultMutableTreeNode parent = (DefaultMutableTreeNode) moreNode.getParent();
+        if (parent == null || parent.getRoot() != rootNode) {
+            return;
+        }
+        List<DefaultMutableTreeNode> childNodes = replaceMoreNode(moreNode);
+        if (!childNodes.isEmpty()) {
+            tree.setSelectionPath(new TreePath(childNodes.get(0).getPath()));
+        }
+        if (tree.isExpanded(new TreePath(parent.getPath()))) {
+            prefetchChildren(parent);
+        }
+    }
+
+    private List<DefaultMutableTreeNode> replaceMoreNode(DefaultMutableTreeNode moreNode) {
+        DefaultMutableTreeNode parent = (DefaultMutableTreeNode) moreNode.getParent();
+        List<? extends ITerm> remaining = ((MoreNode) moreNode.getUserObject()).remaining;
+        treeModel.removeNodeFromParent(moreNode);
+        return addNodes(parent, remaining, false);
+    }
+
+    /**
+     * Expand the tree down to a term and select it. The nodes on the path
+     * that have no children yet get the given children, the pages of wide
+     * nodes are added until the next term of the path is found.
+     *
+     * @param path     the terms from the top level of the tree down to the term
+     * @param children the children of every term of the path but the last one
+     * @return boolean true if the term has been found and selected
+     */
+    public boolean reveal(List<? extends ITerm> path, List<? extends List<? extends ITerm>> children) {
+        if (treeModel == null || path.isEmpty()) {
+            return false;
+        }
+        DefaultMutableTreeNode node = rootNode;
+        for (int i = 0; i < path.size(); i++) {
+            if (i > 0 && node.getChildCount() == 0) {
+                if (children.get(i - 1).isEmpty()) {
+                    return false;
+                }
+                node.setAllowsChildren(true);
+                addNodes(node, children.get(i - 1), false);
+            }
+            node = findChild(node, getKey(path.get(i)));
+            if (node == null) {
+                return false;
+            }
+        }
+        TreePath treePath = new TreePath(node.getPath());
+        tree.setSelectionPath(treePath);
+        tree.scrollPathToVisible(treePath);
+        return true;
+    }
+
+    /**
+     * Find the child node of a term, adding the pages of children hidden
+     * behind a "load more" node if needed.
+     */
+    private DefaultMutableTreeNode findChild(DefaultMutableTreeNode parent, String key) {
+        int index = 0;
+        while (index < parent.getChildCount()) {
+            DefaultMutableTreeNode child = (DefaultMutableTreeNode) parent.getChildAt(index);
+            if (child.getUserObject() instanceof MoreNode) {
+                replaceMoreNode(child);
+            } else {
+                if (key != null && key.equals(getKey(getTerm(child)))) {
+                    return child;
+                }
+                index++;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the terms of the top level of the tree.
+     *
+     * @return List<ITerm> the terms of the children of the root node
+     */
+    public List<ITerm> getTopLevelTerms() {
+        List<ITerm> terms = new ArrayList<>();
+        if (rootNode != null) {
+            Enumeration<DefaultMutableTreeNode> enumeration = rootNode.children();
+            while (enumeration.hasMoreElements()) {
+                ITerm term = getTerm(enumeration.nextElement());
+                if (term != null) {
+                    terms.add(term);
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Return the key identifying the term of a node: its accession, or its
+     * IRI if it has no accession.
+     *
+     * @param term the term
+     * @return String the key, null if the term has no identifier
+     */
+    public static String getKey(ITerm term) {
+        if (term == null) {
+            return null;
+        }
+        if (term.getGlobalId() != null && term.getGlobalId().getIdentifier() != null) {
+            return term.getGlobalId().getIdentifier();
+        }
+        return (term.getIri() != null) ? term.getIri().getIdentifier() : null;
+    }
+
+    /**
+     * Create the node of a term, not attached to the tree. Can be called from
+     * any thread.
+     *
+     * @param term the term
+     * @return DefaultMutableTreeNode the node, allowing children unless the
+     * term is known to be a leaf
+     */
+    public DefaultMutableTreeNode createNode(ITerm term) {
+        return new DefaultMutableTreeNode(new TermNode(term), PrefetchChildrenTask.mayHaveChildren(term));
+    }
+
+    /**
+     * Attach the descendants loaded in the background to a node, the tree is
+     * notified with a single structure change. Nothing is attached if the
+     * node has been removed from the tree or got its children in the
+     * meantime. If the node is expanded, the next levels are prefetched.
+     *
+     * @param parent  the node
+     * @param subtree detached node holding the loaded descendants
+     */
+    public void addChildren(DefaultMutableTreeNode parent, DefaultMutableTreeNode subtree) {
+        if (treeModel == null || parent.getRoot() != rootNode || parent.getChildCount() > 0) {
+            return;
+        }
+        if (subtree.getChildCount() == 0) {
+            // a leaf after all, remove the folder icon
+            parent.setAllowsChildren(false);
+            treeModel.nodeChanged(parent);
+            return;
+        }
+        List<DefaultMutableTreeNode> children = new ArrayList<>(subtree.getChildCount());
+        Enumeration<DefaultMutableTreeNode> enumeration = subtree.children();
+        while (enumeration.hasMoreElements()) {
+            children.add(enumeration.nextElement());
+        }
+        subtree.removeAllChildren();
+        for (DefaultMutableTreeNode child : children) {
+            parent.add(child);
+        }
+        treeModel.nodeStructureChanged(parent);
+        if (tree.isExpanded(new TreePath(parent.getPath()))) {
+            prefetchChildren(parent);
+        }
+    }
+
+    /**
+     * Prefetch in the background the children of the child nodes of a node.
+     *
+     * @param parent the node
+     */
+    private void prefetchChildren(DefaultMutableTreeNode parent) {
+        List<DefaultMutableTreeNode> nodes = new ArrayList<>(parent.getChildCount());
+        Enumeration<DefaultMutableTreeNode> enumeration = parent.children();
+        while (enumeration.hasMoreElements()) {
+            nodes.add(enumeration.nextElement());
+        }
+        olsDialog.prefetchChildren(nodes);
+    }
+
+    /**
+     * Return the term of a node of the tree.
+     *
+     * @param node the node
+     * @return ITerm the term, null if the node is not a term node
+     */
+    public static ITerm getTerm(DefaultMutableTreeNode node) {
+        Object userObject = node.getUserObject();
+        return (userObject instanceof TermNode) ? ((TermNode) userObject).getTerm() : null;
+    }
+
     // required by TreeModelListener interface
     public void treeNodesChanged(TreeModelEvent e) {
     }
@@ -179,69 +449,82 @@ public class TreeBrowser extends JPanel implements TreeSelectionListener, TreeMo
 
         olsDialog.setCursor(new java.awt.Cursor(java.awt.Cursor.WAIT_CURSOR));
 
-        // get selected node
-        DefaultMutableTreeNode node = (DefaultMutableTreeNode) e.getPath().getLastPathComponent();
+        try {
+            // get selected node
+            final DefaultMutableTreeNode node = (DefaultMutableTreeNode) e.getPath().getLastPathComponent();
 
-        if (node == null) {
-            return;
-        }
+            if (node == null) {
+                return;
+            }
 
-        // store the current scroll bar values, used to keep the scroll bars
-        // from moving ones the new list of nodes is opened in order to make
-        // sure that the opened node remains visible
-        int verticalScrollBarValue = scrollPane.getVerticalScrollBar().getValue();
-        int horizontalScrollBarValue = scrollPane.getHorizontalScrollBar().getValue();
+            // the next page of children is loaded once the selection is over
+            if (node.getUserObject() instanceof MoreNode) {
+                if (e.isAddedPath()) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            loadMore(node);
+                        }
+                    });
+                }
+                return;
+            }
 
-        // get node data object
-        TermNode nodeInfo = (TermNode) node.getUserObject();
+            // store the current scroll bar values, used to keep the scroll bars
+            // from moving ones the new list of nodes is opened in order to make
+            // sure that the opened node remains visible
+            int verticalScrollBarValue = scrollPane.getVerticalScrollBar().getValue();
+            int horizontalScrollBarValue = scrollPane.getHorizontalScrollBar().getValue();
 
-        // load the children and the meta data, unless the term is the 'no roots defined' dummy term
-        if (nodeInfo.getTerm() != null && nodeInfo.getTerm().getName()!= null && !nodeInfo.getTerm().getName().equalsIgnoreCase("No Root Terms Defined!")) {
+            // get node data object
+            TermNode nodeInfo = (TermNode) node.getUserObject();
 
-            // load children only for leaf nodes and those that have not been marked as processed
-            if (node.isLeaf() && node.getAllowsChildren()) {
+            // load the children and the meta data, unless the term is the 'no roots defined' dummy term
+            if (nodeInfo.getTerm() != null && nodeInfo.getTerm().getName()!= null && !nodeInfo.getTerm().getName().equalsIgnoreCase("No Root Terms Defined!")) {
 
-                if (OLSDialog.debug) {
-                    System.out.println("will load children for: " + nodeInfo);
-                }
+                // load children only for leaf nodes and those that have not been marked as processed
+                if (node.isLeaf() && node.getAllowsChildren()) {
+
+                    if (OLSDialog.debug) {
+                        System.out.println("will load children for: " + nodeInfo);
+                    }
 
-                // load children. if no children, set allowsChildren to false
-                if (!olsDialog.loadChildren(node, nodeInfo.getTerm())) {
-                    node.setAllowsChildren(false);
+                    // load children in the background, a node without children loses its folder icon
+                    olsDialog.loadChildrenInBackground(node);
                 }
-            }
 
-            // reset the scroll bars, to make sure the node clicked in the first place is still visible
-            scrollPane.getVerticalScrollBar().setValue(verticalScrollBarValue);
-            scrollPane.getHorizontalScrollBar().setValue(horizontalScrollBarValue);
+                // reset the scroll bars, to make sure the node clicked in the first place is still visible
+                scrollPane.getVerticalScrollBar().setValue(verticalScrollBarValue);
+                scrollPane.getHorizontalScrollBar().setValue(horizontalScrollBarValue);
 
-            // load metadata
-            if (OLSDialog.debug) {
-                System.out.println("will load metadata for: " + nodeInfo.getTerm().getGlobalId());
-            }
-            olsDialog.loadMetaData(nodeInfo.getTerm(), OLSDialog.OLS_DIALOG_BROWSE_ONTOLOGY);
-        } else if(nodeInfo.getTerm() != null && nodeInfo.getTerm().getName() == null && !nodeInfo.getTerm().getOntologyName().equalsIgnoreCase("No Root Terms Defined!")){
+                // load metadata
+                if (OLSDialog.debug) {
+                    System.out.println("will load metadata for: " + nodeInfo.getTerm().getGlobalId());
+                }
+                olsDialog.loadMetaData(nodeInfo.getTerm(), OLSDialog.OLS_DIALOG_BROWSE_ONTOLOGY);
+            } else if(nodeInfo.getTerm() != null && nodeInfo.getTerm().getName() == null && !nodeInfo.getTerm().getOntologyName().equalsIgnoreCase("No Root Terms Defined!")){
 
-            olsDialog.loadMetaOntologyData(nodeInfo.getTerm().getOntologyName(), OLSDialog.OLS_DIALOG_BROWSE_ONTOLOGY);
+                olsDialog.loadMetaOntologyData(nodeInfo.getTerm().getOntologyName(), OLSDialog.OLS_DIALOG_BROWSE_ONTOLOGY);
 
-        }else {
-            olsDialog.clearData(OLSDialog.OLS_DIALOG_BROWSE_ONTOLOGY, true, true);
+            }else {
+                olsDialog.clearData(OLSDialog.OLS_DIALOG_BROWSE_ONTOLOGY, true, true);
+            }
+        } finally {
+            // also reset when a request fails and the error escapes to the EDT
+            olsDialog.setCursor(new java.awt.Cursor(java.awt.Cursor.DEFAULT_CURSOR));
         }
-
-        olsDialog.setCursor(new java.awt.Cursor(java.awt.Cursor.DEFAULT_CURSOR));
     }
 
     /**
-     * Detects when a part of the tree has been expanded and if required load a
-     * second level of non visible nodes to make it possible to show folder
-     * icons for nodes containing children.
+     * Detects when a part of the tree has been expanded and prefetches in the
+     * background the children of the expanded nodes, so they can be opened
+     * without waiting. If the children of the expanded node itself are not
+     * loaded yet, they are loaded first.
      *
      * @param event
      */
     public void treeExpanded(TreeExpansionEvent event) {
 
-        olsDialog.setCursor(new java.awt.Cursor(java.awt.Cursor.WAIT_CURSOR));
-
         // get selected node
         DefaultMutableTreeNode node = (DefaultMutableTreeNode) event.getPath().getLastPathComponent();
 
@@ -249,24 +532,11 @@ public class TreeBrowser extends JPanel implements TreeSelectionListener, TreeMo
             return;
         }
 
-        // add second level of nodes if not already added
-        Enumeration<DefaultMutableTreeNode> enumeration = node.children();
-
-        while (enumeration.hasMoreElements()) {
-
-            DefaultMutableTreeNode currentNode = enumeration.nextElement();
-
-            if (currentNode.getChildCount() == 0) {
-
-                // get node data object
-                TermNode nodeInfo = (TermNode) currentNode.getUserObject();
-
-                // add the layer of non visible nodes
-                olsDialog.addSecondLevelOfNodes(nodeInfo.getTerm(), olsDialog.getCurrentOntologyLabel(), currentNode);
-            }
+        if (node.getChildCount() == 0) {
+            olsDialog.prefetchChildren(Collections.singletonList(node));
+        } else {
+            prefetchChildren(node);
         }
-
-        olsDialog.setCursor(new java.awt.Cursor(java.awt.Cursor.DEFAULT_CURSOR));
     }
 
     /**
@@ -279,68 +549,61 @@ public class TreeBrowser extends JPanel implements TreeSelectionListener, TreeMo
     }
 
     /**
-     * Inner class that represents a node in the tree. It contains a term name
-     * and term id as fields.
+     * Class that represents a node in the tree. It only keeps the term, the
+     * label is built the first time the node is painted.
      */
-    private class TermNode {
+    private static final class TermNode {
 
-        private ITerm term;
-        private ITerm parentTerm;
-        private String type;
+        private final ITerm term;
 
-        public void setTerm(ITerm term) {
-            this.term = term;
-        }
+        private String label;
 
         public TermNode(ITerm term) {
             this.term = term;
         }
 
-        public TermNode(ITerm term, ITerm parentTerm){
-            this.term = term;
-            this.parentTerm = parentTerm;
-
-        }
-
-        /**
-         * Returns the term name.
-         *
-         * @return the term name
-         */
-        public String getTermName() {
-            return term.getName();
-        }
-
-
         @Override
         public String toString() {
-            String nodeString = "";
-            if (term != null) {
-                if (term.getGlobalId() != null) {
-                  if (term.getGlobalId().getIdentifier() != null) {
-                    nodeString += StringUtils.capitalize(term.getName()) + " [ " + term.getGlobalId().getIdentifier().toUpperCase() + " ]";
-                  }else{
-                    nodeString += StringUtils.capitalize(term.getName());
-                  }
-                } else if (term.getName() != null) {
-                  nodeString += term.getName();
-                } else if (term.getOntologyName() != null) {
-                  nodeString += term.getOntologyName().toUpperCase();
+            if (label == null) {
+                String nodeString = "";
+                if (term != null) {
+                    if (term.getGlobalId() != null) {
+                        if (term.getGlobalId().getIdentifier() != null) {
+                            nodeString += StringUtils.capitalize(term.getName()) + " [ " + term.getGlobalId().getIdentifier().toUpperCase() + " ]";
+                        } else {
+                            nodeString += StringUtils.capitalize(term.getName());
+                        }
+                    } else if (term.getName() != null) {
+                        nodeString += term.getName();
+                    } else if (term.getOntologyName() != null) {
+                        nodeString += term.getOntologyName().toUpperCase();
+                    }
                 }
+                label = nodeString;
             }
-            return nodeString;
+            return label;
         }
 
         public ITerm getTerm() {
             return term;
         }
+    }
 
-        public ITerm getParentTerm() {
-            return parentTerm;
+    /**
+     * Virtual node standing for the children of a node that are not shown
+     * yet. Selecting it adds the next page of children.
+     */
+    private static final class MoreNode {
+
+        private final List<? extends ITerm> remaining;
+
+        private MoreNode(List<? extends ITerm> remaining) {
+            this.remaining = remaining;
         }
 
-        public void setParentTerm(Term parentTerm) {
-            this.parentTerm = parentTerm;
+        @Override
+        public String toString() {
+            return "load more\u2026 (" + remaining.size() + " more)";
         }
     }
 }
@@ -34,16 +34,25 @@ public final class Util {
     public static List<Ontology> refineOntologyNames(List<Ontology> ontologies){
         List<Ontology> resultOntologies = new ArrayList<>();
         if(ontologies != null && ontologies.size() > 0){
-            for(Ontology key: ontologies)
-                if(key.getName().length() > 80){
-                    key.setName(key.getName().substring(0, 50) + "..");
-                    resultOntologies.add(key);
-                }else
-                    resultOntologies.add(key);
+            for(Ontology key: ontologies){
+                key.setName(refineOntologyName(key.getName()));
+                resultOntologies.add(key);
+            }
         }
         return resultOntologies;
     }
 
+    /**
+     * Shortened ontology name for display, the ontology itself is left
+     * untouched. Names longer than 80 characters are cut to 50.
+     * @param name
+     */
+    public static String refineOntologyName(String name){
+        if(name != null && name.length() > 80)
+            return name.substring(0, 50) + "..";
+        return name;
+    }
+
     public static List<Term> refineOntologyNullIds(List<Term> roots) {
         List<Term> result = new ArrayList<>();
         if(roots != null && roots.size() > 0){
@@ -55,6 +64,13 @@ public final class Util {
 
     }
 
+    /**
+     * Linear search of an ontology by id.
+     *
+     * @deprecated use {@link uk.ac.ebi.pride.toolsuite.ols.dialog.cache.OntologyRegistry#findOntology(String)}
+     * which looks the ontology up by prefix in constant time.
+     */
+    @Deprecated
     public static Ontology findOntology(List<Ontology> ontologies, String shortName){
         if(ontologies != null && shortName != null){
             for(Ontology ontology: ontologies)